@@ -0,0 +1,64 @@
+package at.sv.hue;
+
+import at.sv.hue.time.StartTimeProviderImpl;
+import at.sv.hue.time.SunTimesProviderImpl;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Shared setup for the benchmarks: a {@link ScheduledStateRegistry} filled with a typical day of states for every
+ * room and zone of a {@link SyntheticHueApi}. The fixed {@link #NOW} lies inside the long evening transitions, so
+ * that the interpolation paths are exercised.
+ */
+final class BenchmarkFixture {
+
+    static final ZonedDateTime NOW = ZonedDateTime.of(2021, 1, 1, 18, 30, 0, 0, ZoneId.of("Europe/Vienna"));
+    static final int BRIGHTNESS_THRESHOLD = InputConfigurationParser.parseBrightnessPercentValue(3.8);
+    static final int COLOR_TEMPERATURE_THRESHOLD_KELVIN = 150;
+    static final double COLOR_THRESHOLD = 0.06;
+
+    final SyntheticHueApi api;
+    final ScheduledStateRegistry registry;
+
+    BenchmarkFixture(int rooms, int lightsPerRoom) {
+        api = new SyntheticHueApi(rooms, lightsPerRoom);
+        registry = new ScheduledStateRegistry(() -> NOW, api);
+        InputConfigurationParser parser = new InputConfigurationParser(
+                new StartTimeProviderImpl(new SunTimesProviderImpl(48.20, 16.39, 165)), api, 2,
+                InputConfigurationParser.parseBrightnessPercentValue(10), 350, 0.06, false, true);
+        for (int room = 1; room <= rooms; room++) {
+            String group = "g" + room;
+            add(parser, group + "\t07:00\tbri:254\tct:250\ttr-before:1h");
+            add(parser, group + "\t20:00\tbri:120\tx:0.5\ty:0.41\ttr-before:3h");
+            add(parser, group + "\t23:00\tbri:10\tct:454\ttr-before:1h");
+            String firstLight = String.valueOf((room - 1) * lightsPerRoom + 1);
+            add(parser, firstLight + "\t07:00\tbri:254\tgradient:[xy(0.3 0.3), xy(0.35 0.35)]\ttr-before:1h");
+            add(parser, firstLight + "\t20:00\tbri:150\tgradient:[xy(0.2 0.3), xy(0.4 0.4), xy(0.5 0.41)]\ttr-before:3h");
+        }
+        for (int room = 1; room <= rooms; room += SyntheticHueApi.ROOMS_PER_ZONE) {
+            String zone = "g" + SyntheticHueApi.getZoneNumber(room);
+            add(parser, zone + "\t08:00\tbri:200\tct:300");
+            add(parser, zone + "\t21:00\tbri:80\tct:400\ttr-before:3h");
+        }
+        registry.values().stream().flatMap(List::stream).forEach(state -> {
+            state.setPreviousStateLookup(registry::getPreviousState);
+            state.setNextStateLookup(registry::getNextStateAfter);
+        });
+    }
+
+    private void add(InputConfigurationParser parser, String line) {
+        parser.parse(line).forEach(registry::addState);
+    }
+
+    /**
+     * @return the snapshot of the given state id, that is active at {@link #NOW}
+     */
+    ScheduledStateSnapshot getActiveSnapshot(String id) {
+        return registry.findCurrentlyActiveStates().stream()
+                       .filter(snapshot -> snapshot.getId().equals(id))
+                       .findFirst()
+                       .orElseThrow(() -> new IllegalStateException("No active state for '" + id + "'"));
+    }
+}
@@ -0,0 +1,81 @@
+package at.sv.hue;
+
+import at.sv.hue.api.PutCall;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PutCallsBenchmark {
+
+    private static final String GROUP_ID = SyntheticHueApi.getGroupId(1);
+
+    @Param({"4", "12", "48"})
+    public int lights;
+
+    private List<PutCall> sameStates;
+    private List<PutCall> differentStates;
+    private PutCalls current;
+    private PutCalls similar;
+    private PutCalls changed;
+
+    @Setup
+    public void setUp() {
+        sameStates = new ArrayList<>();
+        differentStates = new ArrayList<>();
+        List<PutCall> similarStates = new ArrayList<>();
+        List<PutCall> changedStates = new ArrayList<>();
+        for (int i = 1; i <= lights; i++) {
+            String id = SyntheticHueApi.getLightId(i);
+            sameStates.add(PutCall.builder().id(id).bri(120).ct(300).build());
+            differentStates.add(PutCall.builder().id(id).bri(100 + i).x(0.3 + i * 0.001).y(0.35)
+                                       .gamut(SyntheticHueApi.GAMUT_C).build());
+            similarStates.add(PutCall.builder().id(id).bri(102 + i).x(0.301 + i * 0.001).y(0.351)
+                                     .gamut(SyntheticHueApi.GAMUT_C).build());
+            changedStates.add(PutCall.builder().id(id).bri(100 + i).x(0.3 + i * 0.001)
+                                     .y(i == lights ? 0.45 : 0.35).gamut(SyntheticHueApi.GAMUT_C).build());
+        }
+        current = new PutCalls(GROUP_ID, differentStates, null, true);
+        similar = new PutCalls(GROUP_ID, similarStates, null, true);
+        changed = new PutCalls(GROUP_ID, changedStates, null, true);
+    }
+
+    @Benchmark
+    public PutCalls constructGeneralGroup() {
+        return new PutCalls(GROUP_ID, sameStates, null, true);
+    }
+
+    @Benchmark
+    public PutCalls constructPerLight() {
+        return new PutCalls(GROUP_ID, differentStates, null, true);
+    }
+
+    @Benchmark
+    public boolean hasNotSimilarLightStateAllSimilar() {
+        return current.hasNotSimilarLightState(similar, BenchmarkFixture.BRIGHTNESS_THRESHOLD,
+                BenchmarkFixture.COLOR_TEMPERATURE_THRESHOLD_KELVIN, BenchmarkFixture.COLOR_THRESHOLD);
+    }
+
+    @Benchmark
+    public boolean hasNotSimilarLightStateLastDiffers() {
+        return current.hasNotSimilarLightState(changed, BenchmarkFixture.BRIGHTNESS_THRESHOLD,
+                BenchmarkFixture.COLOR_TEMPERATURE_THRESHOLD_KELVIN, BenchmarkFixture.COLOR_THRESHOLD);
+    }
+}
@@ -0,0 +1,67 @@
+package at.sv.hue;
+
+import at.sv.hue.api.GroupInfo;
+import at.sv.hue.api.PutCall;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduledStateRegistryBenchmark {
+
+    @Param({"4", "24"})
+    public int rooms;
+
+    @Param({"4", "12"})
+    public int lightsPerRoom;
+
+    private ScheduledStateRegistry registry;
+    private ScheduledStateSnapshot roomState;
+    private List<String> roomLights;
+    private List<String> zoneLights;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixture fixture = new BenchmarkFixture(rooms, lightsPerRoom);
+        registry = fixture.registry;
+        roomState = fixture.getActiveSnapshot(SyntheticHueApi.getGroupId(1));
+        roomLights = fixture.api.getGroupLights(SyntheticHueApi.getGroupId(1));
+        zoneLights = fixture.api.getGroupLights(SyntheticHueApi.getGroupId(SyntheticHueApi.getZoneNumber(1)));
+    }
+
+    @Benchmark
+    public List<PutCall> roomPutCalls() {
+        return registry.getPutCalls(roomLights);
+    }
+
+    @Benchmark
+    public List<PutCall> zonePutCalls() {
+        return registry.getPutCalls(zoneLights);
+    }
+
+    @Benchmark
+    public List<GroupInfo> assignedGroups() {
+        return registry.getAssignedGroups(roomState);
+    }
+
+    @Benchmark
+    public long countOverlappingGroupStatesWithMoreLights() {
+        return registry.countOverlappingGroupStatesWithMoreLights(roomState);
+    }
+}
@@ -0,0 +1,58 @@
+package at.sv.hue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduledStateSnapshotBenchmark {
+
+    @Param({"4", "12"})
+    public int lightsPerRoom;
+
+    private ScheduledStateSnapshot groupState;
+    private PutCalls currentGroupPutCalls;
+    private ScheduledStateSnapshot zoneState;
+    private PutCalls currentZonePutCalls;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixture fixture = new BenchmarkFixture(SyntheticHueApi.ROOMS_PER_ZONE, lightsPerRoom);
+        groupState = fixture.getActiveSnapshot(SyntheticHueApi.getGroupId(1));
+        currentGroupPutCalls = groupState.getInterpolatedFullPicturePutCalls(BenchmarkFixture.NOW);
+        zoneState = fixture.getActiveSnapshot(SyntheticHueApi.getGroupId(SyntheticHueApi.getZoneNumber(1)));
+        currentZonePutCalls = zoneState.getInterpolatedFullPicturePutCalls(BenchmarkFixture.NOW);
+    }
+
+    @Benchmark
+    public ZonedDateTime groupNextSignificantPropertyChangeTime() {
+        return getNextSignificantPropertyChangeTime(groupState, currentGroupPutCalls);
+    }
+
+    @Benchmark
+    public ZonedDateTime zoneNextSignificantPropertyChangeTime() {
+        return getNextSignificantPropertyChangeTime(zoneState, currentZonePutCalls);
+    }
+
+    private static ZonedDateTime getNextSignificantPropertyChangeTime(ScheduledStateSnapshot snapshot, PutCalls currentPutCalls) {
+        return snapshot.getNextSignificantPropertyChangeTime(currentPutCalls, BenchmarkFixture.NOW,
+                BenchmarkFixture.BRIGHTNESS_THRESHOLD, BenchmarkFixture.COLOR_TEMPERATURE_THRESHOLD_KELVIN,
+                BenchmarkFixture.COLOR_THRESHOLD);
+    }
+}
@@ -0,0 +1,58 @@
+package at.sv.hue;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateInterpolatorBenchmark {
+
+    @Param({"4", "12"})
+    public int lightsPerRoom;
+
+    private ScheduledStateSnapshot groupState;
+    private ScheduledStateSnapshot gradientLightState;
+    private ScheduledStateSnapshot zoneState;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixture fixture = new BenchmarkFixture(SyntheticHueApi.ROOMS_PER_ZONE, lightsPerRoom);
+        groupState = fixture.getActiveSnapshot(SyntheticHueApi.getGroupId(1));
+        gradientLightState = fixture.getActiveSnapshot(SyntheticHueApi.getLightId(1));
+        zoneState = fixture.getActiveSnapshot(SyntheticHueApi.getGroupId(SyntheticHueApi.getZoneNumber(1)));
+    }
+
+    @Benchmark
+    public PutCalls groupColorTemperatureToXY() {
+        return interpolate(groupState);
+    }
+
+    @Benchmark
+    public PutCalls lightGradient() {
+        return interpolate(gradientLightState);
+    }
+
+    @Benchmark
+    public PutCalls zoneColorTemperature() {
+        return interpolate(zoneState);
+    }
+
+    private static PutCalls interpolate(ScheduledStateSnapshot snapshot) {
+        return new StateInterpolator(snapshot, snapshot.getPreviousState(), BenchmarkFixture.NOW).getInterpolatedPutCalls();
+    }
+}
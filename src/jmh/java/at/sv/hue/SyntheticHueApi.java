@@ -0,0 +1,212 @@
+package at.sv.hue;
+
+import at.sv.hue.api.AffectedId;
+import at.sv.hue.api.Capability;
+import at.sv.hue.api.GroupInfo;
+import at.sv.hue.api.GroupNotFoundException;
+import at.sv.hue.api.HueApi;
+import at.sv.hue.api.Identifier;
+import at.sv.hue.api.LightCapabilities;
+import at.sv.hue.api.LightNotFoundException;
+import at.sv.hue.api.LightState;
+import at.sv.hue.api.PutCall;
+import at.sv.hue.api.SceneNotFoundException;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory {@link HueApi} stand-in, so that the benchmarks don't need a bridge. The topology consists of the given
+ * number of rooms with the same number of lights each, and one additional zone spanning every four rooms.
+ * All write operations are no-ops.
+ */
+final class SyntheticHueApi implements HueApi {
+
+    static final Double[][] GAMUT_C = {{0.6915, 0.3083}, {0.17, 0.7}, {0.1532, 0.0475}};
+    static final int ROOMS_PER_ZONE = 4;
+    static final int ZONE_ID_OFFSET = 1000;
+
+    private static final LightCapabilities CAPABILITIES = LightCapabilities.builder()
+                                                                           .ctMin(153)
+                                                                           .ctMax(500)
+                                                                           .colorGamutType("C")
+                                                                           .colorGamut(GAMUT_C)
+                                                                           .effects(List.of("candle"))
+                                                                           .gradientModes(List.of("interpolated_palette"))
+                                                                           .maxGradientPoints(5)
+                                                                           .capabilities(EnumSet.allOf(Capability.class))
+                                                                           .build();
+
+    private final Map<String, List<String>> groupLights = new LinkedHashMap<>();
+    private final Map<String, List<String>> assignedGroups = new LinkedHashMap<>();
+
+    SyntheticHueApi(int rooms, int lightsPerRoom) {
+        int lightId = 1;
+        for (int room = 1; room <= rooms; room++) {
+            List<String> lights = new ArrayList<>();
+            for (int i = 0; i < lightsPerRoom; i++) {
+                lights.add(getLightId(lightId++));
+            }
+            addGroup(getGroupId(room), lights);
+        }
+        for (int room = 1; room <= rooms; room += ROOMS_PER_ZONE) {
+            List<String> lights = new ArrayList<>();
+            for (int i = room; i < Math.min(room + ROOMS_PER_ZONE, rooms + 1); i++) {
+                lights.addAll(groupLights.get(getGroupId(i)));
+            }
+            addGroup(getGroupId(getZoneNumber(room)), lights);
+        }
+    }
+
+    static String getLightId(int number) {
+        return "/lights/" + number;
+    }
+
+    static String getGroupId(int number) {
+        return "/groups/" + number;
+    }
+
+    static int getZoneNumber(int room) {
+        return ZONE_ID_OFFSET + (room - 1) / ROOMS_PER_ZONE;
+    }
+
+    private void addGroup(String groupId, List<String> lights) {
+        groupLights.put(groupId, List.copyOf(lights));
+        lights.forEach(light -> assignedGroups.computeIfAbsent(light, _ -> new ArrayList<>()).add(groupId));
+    }
+
+    @Override
+    public void assertConnection() {
+    }
+
+    @Override
+    public Identifier getLightIdentifier(String id) {
+        if (!assignedGroups.containsKey(id)) {
+            throw new LightNotFoundException("Light '" + id + "' not found");
+        }
+        return new Identifier(id, id);
+    }
+
+    @Override
+    public Identifier getGroupIdentifier(String id) {
+        if (!groupLights.containsKey(id)) {
+            throw new GroupNotFoundException("Group '" + id + "' not found");
+        }
+        return new Identifier(id, id);
+    }
+
+    @Override
+    public Identifier getLightIdentifierByName(String name) {
+        return getLightIdentifier(name);
+    }
+
+    @Override
+    public Identifier getGroupIdentifierByName(String name) {
+        return getGroupIdentifier(name);
+    }
+
+    @Override
+    public LightState getLightState(String id) {
+        return LightState.builder().id(id).on(true).brightness(254).colorTemperature(300).build();
+    }
+
+    @Override
+    public List<LightState> getGroupStates(String id) {
+        return getGroupLights(id).stream().map(this::getLightState).toList();
+    }
+
+    @Override
+    public boolean isLightOff(String id) {
+        return false;
+    }
+
+    @Override
+    public boolean isGroupOff(String id) {
+        return false;
+    }
+
+    @Override
+    public void putState(PutCall putCall) {
+    }
+
+    @Override
+    public void putGroupState(PutCall putCall) {
+    }
+
+    @Override
+    public void putSceneState(String groupId, List<PutCall> putCalls) {
+    }
+
+    @Override
+    public void allowFastSceneUpdate(String groupId) {
+    }
+
+    @Override
+    public List<String> getGroupLights(String groupId) {
+        List<String> lights = groupLights.get(groupId);
+        if (lights == null) {
+            throw new GroupNotFoundException("Group '" + groupId + "' not found");
+        }
+        return lights;
+    }
+
+    @Override
+    public String getSceneName(String sceneId) {
+        return null;
+    }
+
+    @Override
+    public List<AffectedId> getAffectedIdsByScene(String sceneId) {
+        return List.of();
+    }
+
+    @Override
+    public List<String> getAffectedIdsByDevice(String deviceId) {
+        return List.of();
+    }
+
+    @Override
+    public List<String> getAssignedGroups(String lightId) {
+        return assignedGroups.getOrDefault(lightId, List.of());
+    }
+
+    @Override
+    public List<GroupInfo> getAdditionalAreas(List<String> lightIds) {
+        return List.of();
+    }
+
+    @Override
+    public LightCapabilities getLightCapabilities(String id) {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public LightCapabilities getGroupCapabilities(String id) {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public String getSceneId(String groupId, String sceneName) {
+        throw new SceneNotFoundException("Scene '" + sceneName + "' not found");
+    }
+
+    @Override
+    public List<ScheduledLightState> getSceneLightStates(String sceneId) {
+        throw new SceneNotFoundException("Scene '" + sceneId + "' not found");
+    }
+
+    @Override
+    public void createOrUpdateScene(String groupId, String sceneSyncName, List<PutCall> putCalls) {
+    }
+
+    @Override
+    public void clearCaches() {
+    }
+
+    @Override
+    public void onModification(String type, String id, Object content) {
+    }
+}
@@ -0,0 +1,55 @@
+package at.sv.hue.color;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColorBenchmark {
+
+    private static final Double[][] GAMUT_A = {{0.704, 0.296}, {0.2151, 0.7106}, {0.138, 0.08}};
+    private static final Double[][] GAMUT_C = {{0.6915, 0.3083}, {0.17, 0.7}, {0.1532, 0.0475}};
+
+    @Benchmark
+    public double[] lerpOKLabXYWhites() {
+        return OkLabUtil.lerpOKLabXY(0.4573, 0.41, 0.3227, 0.329, 0.37, GAMUT_C);
+    }
+
+    @Benchmark
+    public double[] lerpOKLabXYChromatic() {
+        return OkLabUtil.lerpOKLabXY(0.6, 0.3, 0.17, 0.6, 0.37, GAMUT_C);
+    }
+
+    @Benchmark
+    public double[] lerpOKLabXYOutOfGamut() {
+        return OkLabUtil.lerpOKLabXY(0.1, 0.8, 0.7, 0.29, 0.37, GAMUT_A);
+    }
+
+    @Benchmark
+    public void gamutCorrectionInsideGamut(Blackhole blackhole) {
+        XYColorGamutCorrection correction = new XYColorGamutCorrection(0.3227, 0.329, GAMUT_C);
+        blackhole.consume(correction.getX());
+        blackhole.consume(correction.getY());
+    }
+
+    @Benchmark
+    public void gamutCorrectionOutsideGamut(Blackhole blackhole) {
+        XYColorGamutCorrection correction = new XYColorGamutCorrection(0.1, 0.8, GAMUT_A);
+        blackhole.consume(correction.getX());
+        blackhole.consume(correction.getY());
+    }
+}
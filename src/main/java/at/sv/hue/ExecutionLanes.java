@@ -0,0 +1,68 @@
+package at.sv.hue;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks of the same lane one after another, in the order they have been submitted, while tasks of different lanes
+ * still run in parallel on the given executor. Lanes are created on demand and removed again once they are empty.
+ */
+final class ExecutionLanes {
+
+    private final Executor executor;
+    private final Map<Object, Lane> lanes = new HashMap<>();
+
+    ExecutionLanes(Executor executor) {
+        this.executor = executor;
+    }
+
+    void submit(Object laneId, Runnable task) {
+        synchronized (lanes) {
+            Lane lane = lanes.computeIfAbsent(laneId, Lane::new);
+            lane.tasks.add(task);
+            if (lane.tasks.size() == 1) {
+                executor.execute(() -> runNext(lane));
+            }
+        }
+    }
+
+    /**
+     * @return the number of lanes that currently have running or waiting tasks
+     */
+    int getActiveLaneCount() {
+        synchronized (lanes) {
+            return lanes.size();
+        }
+    }
+
+    private void runNext(Lane lane) {
+        Runnable task;
+        synchronized (lanes) {
+            task = lane.tasks.peek();
+        }
+        try {
+            task.run();
+        } finally {
+            synchronized (lanes) {
+                lane.tasks.poll();
+                if (lane.tasks.isEmpty()) {
+                    lanes.remove(lane.id);
+                } else {
+                    executor.execute(() -> runNext(lane));
+                }
+            }
+        }
+    }
+
+    private static final class Lane {
+        private final Object id;
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        private Lane(Object id) {
+            this.id = id;
+        }
+    }
+}
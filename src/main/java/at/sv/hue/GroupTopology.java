@@ -0,0 +1,78 @@
+package at.sv.hue;
+
+import at.sv.hue.api.GroupInfo;
+import at.sv.hue.api.HueApi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Snapshot of the group assignments of lights, as used by {@link ScheduledStateRegistry}: the lights of each group,
+ * the groups of each light sorted by size, and the overlapping lights between groups.
+ * <p>
+ * The entries are filled on first access and then returned without asking the api again. Failed api lookups are not
+ * remembered. Once rooms, zones or devices change, the whole snapshot is replaced by a new, empty one.
+ */
+final class GroupTopology {
+
+    private final HueApi api;
+    private final Map<String, List<String>> groupLights = new ConcurrentHashMap<>();
+    private final Map<List<String>, List<GroupInfo>> assignedGroupsSortedBySizeDesc = new ConcurrentHashMap<>();
+    private final Map<String, Map<List<String>, List<String>>> overlappingLights = new ConcurrentHashMap<>();
+
+    GroupTopology(HueApi api) {
+        this.api = api;
+    }
+
+    List<String> getGroupLights(String groupId) {
+        List<String> lights = groupLights.get(groupId);
+        if (lights == null) {
+            lights = List.copyOf(api.getGroupLights(groupId));
+            groupLights.put(groupId, lights);
+        }
+        return lights;
+    }
+
+    /**
+     * @return the groups of the given lights, larger groups first, so that smaller groups can override the larger ones
+     */
+    List<GroupInfo> getAssignedGroupsSortedBySizeDesc(List<String> lightIds) {
+        List<GroupInfo> assignedGroups = assignedGroupsSortedBySizeDesc.get(lightIds);
+        if (assignedGroups == null) {
+            assignedGroups = lookupAssignedGroupsSortedBySizeDesc(lightIds);
+            assignedGroupsSortedBySizeDesc.put(List.copyOf(lightIds), assignedGroups);
+        }
+        return assignedGroups;
+    }
+
+    private List<GroupInfo> lookupAssignedGroupsSortedBySizeDesc(List<String> lightIds) {
+        return lightIds.stream()
+                       .map(api::getAssignedGroups)
+                       .flatMap(Collection::stream)
+                       .distinct()
+                       .map(groupId -> new GroupInfo(groupId, getGroupLights(groupId)))
+                       .sorted(Comparator.comparingInt((GroupInfo groupInfo) -> groupInfo.groupLights().size()).reversed())
+                       .toList();
+    }
+
+    /**
+     * @return the lights of {@code lightIds} that are also part of the other group, in the order of {@code lightIds}
+     */
+    List<String> getOverlappingLights(String otherGroupId, List<String> lightIds) {
+        Map<List<String>, List<String>> overlappingLightsForGroup =
+                overlappingLights.computeIfAbsent(otherGroupId, _ -> new ConcurrentHashMap<>());
+        List<String> overlapping = overlappingLightsForGroup.get(lightIds);
+        if (overlapping == null) {
+            List<String> otherGroupLights = getGroupLights(otherGroupId);
+            List<String> result = new ArrayList<>(lightIds);
+            result.retainAll(otherGroupLights);
+            overlapping = List.copyOf(result);
+            overlappingLightsForGroup.put(List.copyOf(lightIds), overlapping);
+        }
+        return overlapping;
+    }
+}
@@ -1,8 +1,12 @@
 package at.sv.hue;
 
+import at.sv.hue.api.AdaptiveRateLimiter;
 import at.sv.hue.api.ApiFailure;
+import at.sv.hue.api.AsyncCalls;
 import at.sv.hue.api.BridgeAuthenticationFailure;
 import at.sv.hue.api.BridgeConnectionFailure;
+import at.sv.hue.api.GroupInfo;
+import at.sv.hue.api.HierarchicalRateLimiter;
 import at.sv.hue.api.HttpResourceProviderImpl;
 import at.sv.hue.api.HueApi;
 import at.sv.hue.api.LightEventListener;
@@ -12,8 +16,10 @@ import at.sv.hue.api.ManualOverrideTracker;
 import at.sv.hue.api.ManualOverrideTrackerImpl;
 import at.sv.hue.api.PutCall;
 import at.sv.hue.api.RateLimiter;
+import at.sv.hue.api.RequestPriority;
 import at.sv.hue.api.SceneEventListener;
 import at.sv.hue.api.SceneEventListenerImpl;
+import at.sv.hue.api.VirtualThreadHueApi;
 import at.sv.hue.api.hass.HassApiImpl;
 import at.sv.hue.api.hass.HassApiUtils;
 import at.sv.hue.api.hass.HassAvailabilityListener;
@@ -21,6 +27,7 @@ import at.sv.hue.api.hass.HassEventHandler;
 import at.sv.hue.api.hass.HassEventStreamReader;
 import at.sv.hue.api.hass.area.HassAreaRegistry;
 import at.sv.hue.api.hass.area.HassAreaRegistryImpl;
+import at.sv.hue.api.hass.area.HassWebSocketClient;
 import at.sv.hue.api.hass.area.HassWebSocketClientImpl;
 import at.sv.hue.api.hue.HueApiImpl;
 import at.sv.hue.api.hue.HueEventHandler;
@@ -30,6 +37,7 @@ import at.sv.hue.time.StartTimeProvider;
 import at.sv.hue.time.StartTimeProviderImpl;
 import at.sv.hue.time.SunTimesProviderImpl;
 import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import org.slf4j.Logger;
@@ -52,10 +60,16 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
@@ -111,11 +125,64 @@ public final class HueScheduler implements Runnable {
             description = "The maximum number of concurrent in-flight HTTP requests. " +
                           "Limits parallel TLS handshakes and connections to the bridge. Default: ${DEFAULT-VALUE}")
     int maxConcurrentRequests;
+    @Option(names = "--adaptive-rate-limit",
+            defaultValue = "${env:ADAPTIVE_RATE_LIMIT:-false}",
+            description = "Experimental: Adapts the request rate to the feedback of the bridge, starting at the" +
+                          " configured max requests per second. The rate is reduced on rate limit and server errors or" +
+                          " rising latency, and probed upward up to twice the configured rate otherwise." +
+                          " Default: ${DEFAULT-VALUE}")
+    boolean adaptiveRateLimit;
+    @Option(names = "--prioritized-rate-limit",
+            defaultValue = "${env:PRIORITIZED_RATE_LIMIT:-false}",
+            description = "Experimental: Shares the request rate between light, group and scene requests at 50%," +
+                          " 30% and 20% while they compete, each using the full rate on its own. Waiting requests are" +
+                          " served by priority, so that lights being turned on are updated before background interpolations and" +
+                          " scene syncs. Default: ${DEFAULT-VALUE}")
+    boolean prioritizedRateLimit;
     @Option(names = "--control-group-lights-individually",
             defaultValue = "${env:CONTROL_GROUP_LIGHTS_INDIVIDUALLY:-false}",
             description = "Experimental: If the lights in a group should be controlled individually instead of using broadcast messages." +
                           " This might improve performance. Default: ${DEFAULT-VALUE}")
     boolean controlGroupLightsIndividually;
+    @Option(names = "--parallel-individual-light-updates",
+            defaultValue = "${env:PARALLEL_INDIVIDUAL_LIGHT_UPDATES:-false}",
+            description = "Experimental: If lights that are controlled individually should be updated in parallel instead of one after another," +
+                          " limited by --max-concurrent-requests. Lights sharing the same state that form a smaller group of at least 10 lights" +
+                          " are updated with a single group update, as a group update uses the rate limit of 10 light updates." +
+                          " Default: ${DEFAULT-VALUE}")
+    boolean parallelIndividualLightUpdates;
+    @Option(names = "--timing-wheel-scheduler",
+            defaultValue = "${env:TIMING_WHEEL_SCHEDULER:-false}",
+            description = "Experimental: Use a timing wheel to schedule the states, which replaces pending tasks of a state" +
+                          " when it is rescheduled instead of keeping duplicates. Default: ${DEFAULT-VALUE}")
+    boolean timingWheelScheduler;
+    @Option(names = "--bulk-resource-refresh",
+            defaultValue = "${env:BULK_RESOURCE_REFRESH:-false}",
+            description = "Experimental: Refresh the cached lights, groups, scenes and devices with a single request to the" +
+                          " bridge, instead of one request per resource type. Default: ${DEFAULT-VALUE}")
+    boolean bulkResourceRefresh;
+    @Option(names = "--http2",
+            defaultValue = "${env:HTTP2:-false}",
+            description = "Experimental: Negotiate HTTP/2 with the bridge and multiplex all requests and the event stream" +
+                          " over a single long-lived connection, avoiding TLS handshakes on bursts. Falls back to" +
+                          " HTTP/1.1 if not supported by the bridge. Default: ${DEFAULT-VALUE}")
+    boolean http2;
+    @Option(names = "--hass-state-mirror",
+            defaultValue = "${env:HASS_STATE_MIRROR:-false}",
+            description = "Experimental: Serve all Home Assistant states from a local mirror kept up to date by the" +
+                          " event stream, instead of requesting them for every light and group update. The mirror is" +
+                          " only reloaded on reconnect and once HA has started. Default: ${DEFAULT-VALUE}")
+    boolean hassStateMirror;
+    @Option(names = "--hass-websocket-commands",
+            defaultValue = "${env:HASS_WEBSOCKET_COMMANDS:-false}",
+            description = "Experimental: Call Home Assistant services over a persistent websocket connection," +
+                          " instead of a REST request per call. States are still requested via REST. Default: ${DEFAULT-VALUE}")
+    boolean hassWebsocketCommands;
+    @Option(names = "--state-journal", paramLabel = "<file>",
+            defaultValue = "${env:STATE_JOURNAL}",
+            description = "File to persist manual overrides and the last applied states in, so that they survive a" +
+                          " restart. Disabled if not set.")
+    Path stateJournalFile;
     @Option(names = "--disable-user-modification-tracking",
             defaultValue = "${env:DISABLE_USER_MODIFICATION_TRACKING:-false}",
             description = "Globally disable tracking of user modifications which would pause their schedules until they are turned off and on again." +
@@ -262,8 +329,13 @@ public final class HueScheduler implements Runnable {
                           " Default: ${DEFAULT-VALUE}")
     private boolean insecure;
     private HueApi api;
+    private VirtualThreadHueApi virtualThreadApi;
     private StateScheduler stateScheduler;
-    private final ManualOverrideTracker manualOverrideTracker;
+    private ManualOverrideTracker manualOverrideTracker;
+    private StateJournal stateJournal;
+    private AdaptiveRateLimiter adaptiveRateLimiter;
+    private HttpResourceProviderImpl httpResourceProvider;
+    private HueApiImpl hueApi;
     private LightEventListener lightEventListener;
     private Supplier<ZonedDateTime> currentTime;
     private StartTimeProvider startTimeProvider;
@@ -281,7 +353,7 @@ public final class HueScheduler implements Runnable {
     public HueScheduler(HueApi api, StateScheduler stateScheduler,
                         StartTimeProvider startTimeProvider, Supplier<ZonedDateTime> currentTime,
                         double requestsPerSecond, boolean controlGroupLightsIndividually,
-                        boolean disableUserModificationTracking, boolean requireSceneActivation,
+                        boolean parallelIndividualLightUpdates, boolean disableUserModificationTracking, boolean requireSceneActivation,
                         String defaultInterpolationTransitionTimeString,
                         int powerTransitionRescheduleDelayInMs, int bridgeFailureRetryDelayInSeconds,
                         int minTrBeforeGapInMinutes, double brightnessOverrideThresholdPercentage,
@@ -293,6 +365,7 @@ public final class HueScheduler implements Runnable {
                         boolean autoFillGradient, boolean supportsOffLightUpdates) {
         this();
         this.api = api;
+        virtualThreadApi = VirtualThreadHueApi.of(api);
         ZonedDateTime initialTime = currentTime.get();
         Ticker fakeTicker = () -> Duration.between(initialTime, currentTime.get()).toNanos();
         this.stateScheduler = stateScheduler;
@@ -300,6 +373,7 @@ public final class HueScheduler implements Runnable {
         this.currentTime = currentTime;
         this.requestsPerSecond = requestsPerSecond;
         this.controlGroupLightsIndividually = controlGroupLightsIndividually;
+        this.parallelIndividualLightUpdates = parallelIndividualLightUpdates;
         this.disableUserModificationTracking = disableUserModificationTracking;
         this.requireSceneActivation = requireSceneActivation;
         this.defaultInterpolationTransitionTimeString = defaultInterpolationTransitionTimeString;
@@ -362,6 +436,7 @@ public final class HueScheduler implements Runnable {
         LOG.info("Config file: {}", configFile);
         logEnabledFlags();
         assertConfigurationParameters();
+        setupStateJournal();
         if (HassApiUtils.isHassConnection(accessToken)) {
             setupHassApi();
         } else {
@@ -372,18 +447,54 @@ public final class HueScheduler implements Runnable {
 
     private void logEnabledFlags() {
         LOG.info("Modification Tracking: {}, Scene Sync: {}, Interpolate All: {}, Require Scene Activation: {}, " +
-                 "Control Group Lights Individually: {}",
+                 "Control Group Lights Individually: {}, Parallel Individual Light Updates: {}, Timing Wheel Scheduler: {}",
                 enabledOrDisabled(!disableUserModificationTracking),
                 enabledOrDisabled(enableSceneSync),
                 enabledOrDisabled(interpolateAll),
                 enabledOrDisabled(requireSceneActivation),
-                enabledOrDisabled(controlGroupLightsIndividually));
+                enabledOrDisabled(controlGroupLightsIndividually),
+                enabledOrDisabled(parallelIndividualLightUpdates),
+                enabledOrDisabled(timingWheelScheduler));
     }
 
     private static String enabledOrDisabled(boolean enabled) {
         return enabled ? "enabled" : "disabled";
     }
 
+    private RateLimiter createRateLimiter() {
+        RateLimiter rateLimiter;
+        if (adaptiveRateLimit) {
+            adaptiveRateLimiter = new AdaptiveRateLimiter(requestsPerSecond, 1, requestsPerSecond * 2);
+            rateLimiter = adaptiveRateLimiter;
+        } else if (prioritizedRateLimit) {
+            rateLimiter = RateLimiter.createPrioritized(requestsPerSecond);
+        } else {
+            rateLimiter = RateLimiter.create(requestsPerSecond);
+        }
+        if (prioritizedRateLimit) {
+            return new HierarchicalRateLimiter(rateLimiter);
+        }
+        return rateLimiter;
+    }
+
+    private HttpResourceProviderImpl createHttpResourceProvider(OkHttpClient httpClient) {
+        if (adaptiveRateLimiter != null) {
+            httpResourceProvider = new HttpResourceProviderImpl(httpClient, maxConcurrentRequests, adaptiveRateLimiter);
+        } else {
+            httpResourceProvider = new HttpResourceProviderImpl(httpClient, maxConcurrentRequests);
+        }
+        return httpResourceProvider;
+    }
+
+    private void setupStateJournal() {
+        if (stateJournalFile == null) {
+            return;
+        }
+        LOG.info("State journal: {}", stateJournalFile);
+        stateJournal = new StateJournal(stateJournalFile, currentTime);
+        manualOverrideTracker = stateJournal.track(manualOverrideTracker);
+    }
+
     private void setupHassApi() {
         OkHttpClient httpClient = new OkHttpClient.Builder()
                 .addInterceptor(chain -> {
@@ -393,33 +504,39 @@ public final class HueScheduler implements Runnable {
                     return chain.proceed(request);
                 })
                 .build();
-        RateLimiter rateLimiter = RateLimiter.create(requestsPerSecond);
+        RateLimiter rateLimiter = createRateLimiter();
         String websocketOrigin = HassApiUtils.getHassWebsocketOrigin(apiHost);
-        HassAreaRegistry areaRegistry = new HassAreaRegistryImpl(
-                new HassWebSocketClientImpl(websocketOrigin, accessToken, httpClient, 5));
+        HassWebSocketClient webSocketClient = new HassWebSocketClientImpl(websocketOrigin, accessToken, httpClient, 5);
+        HassAreaRegistry areaRegistry = new HassAreaRegistryImpl(webSocketClient);
         HassAvailabilityListener availabilityListener = new HassAvailabilityListener(this::clearCachesAndReSyncScenes);
-        api = new HassApiImpl(apiHost, new HttpResourceProviderImpl(httpClient, maxConcurrentRequests), areaRegistry, availabilityListener, rateLimiter);
+        HassApiImpl hassApi = new HassApiImpl(apiHost, createHttpResourceProvider(httpClient), areaRegistry,
+                availabilityListener, rateLimiter, hassStateMirror, hassWebsocketCommands ? webSocketClient : null);
+        api = hassApi;
+        virtualThreadApi = VirtualThreadHueApi.of(api);
         lightEventListener = createLightEventListener();
         sceneEventListener = new SceneEventListenerImpl(api, Ticker.systemTicker(),
                 sceneActivationIgnoreWindowInSeconds,
                 sceneName -> HassApiUtils.matchesSceneSyncName(sceneName, sceneSyncName), lightEventListener);
-        new HassEventStreamReader(websocketOrigin, accessToken, httpClient,
-                new HassEventHandler(lightEventListener, sceneEventListener, availabilityListener, api)).start();
         stateRegistry = new ScheduledStateRegistry(currentTime, api);
+        new HassEventStreamReader(websocketOrigin, accessToken, httpClient,
+                new HassEventHandler(lightEventListener, sceneEventListener, availabilityListener,
+                        this::onResourceModified, hassApi::resyncStates)).start();
     }
 
     private void setupHueApi() {
         supportsOffLightUpdates = true;
         OkHttpClient httpsClient = createHueHttpsClient();
-        RateLimiter rateLimiter = RateLimiter.create(requestsPerSecond);
-        api = new HueApiImpl(new HttpResourceProviderImpl(httpsClient, maxConcurrentRequests), apiHost, rateLimiter,
+        RateLimiter rateLimiter = createRateLimiter();
+        hueApi = new HueApiImpl(createHttpResourceProvider(httpsClient), apiHost, rateLimiter,
                 apiCacheInvalidationIntervalInMinutes, sceneControlName, SCENE_CONTROL_APP_DATA,
-                sceneUpdateSleepDelayInMs, fastSceneUpdateSleepDelayInMs);
+                sceneUpdateSleepDelayInMs, fastSceneUpdateSleepDelayInMs, bulkResourceRefresh);
+        api = hueApi;
+        virtualThreadApi = VirtualThreadHueApi.of(api);
         lightEventListener = createLightEventListener();
         sceneEventListener = new SceneEventListenerImpl(api, Ticker.systemTicker(),
                 sceneActivationIgnoreWindowInSeconds, sceneSyncName::equals, lightEventListener);
         new HueEventStreamReader(apiHost, accessToken, httpsClient,
-                new HueEventHandler(lightEventListener, sceneEventListener, api, this::onSceneResourceModified),
+                new HueEventHandler(lightEventListener, sceneEventListener, this::onResourceModified, this::onSceneResourceModified),
                 eventStreamReadTimeoutInMinutes).start();
         stateRegistry = new ScheduledStateRegistry(currentTime, api);
     }
@@ -434,7 +551,7 @@ public final class HueScheduler implements Runnable {
 
     private OkHttpClient createHueHttpsClient() {
         try {
-            return HueHttpsClientFactory.createHttpsClient(apiHost, accessToken, insecure);
+            return HueHttpsClientFactory.createHttpsClient(apiHost, accessToken, insecure, http2);
         } catch (Exception e) {
             System.err.println("Failed to create https client: " + e.getLocalizedMessage());
             System.exit(1);
@@ -446,7 +563,10 @@ public final class HueScheduler implements Runnable {
         return new StartTimeProviderImpl(new SunTimesProviderImpl(latitude, longitude, elevation));
     }
 
-    private StateSchedulerImpl createStateScheduler() {
+    private StateScheduler createStateScheduler() {
+        if (timingWheelScheduler) {
+            return new TimingWheelStateScheduler(ZonedDateTime::now);
+        }
         return new StateSchedulerImpl(Executors.newSingleThreadScheduledExecutor(), ZonedDateTime::now);
     }
 
@@ -558,6 +678,7 @@ public final class HueScheduler implements Runnable {
         } else {
             parseInput();
             performSyncedSceneMigration();
+            replayStateJournal();
             start();
         }
     }
@@ -610,9 +731,17 @@ public final class HueScheduler implements Runnable {
                 colorTemperatureOverrideThresholdKelvin, colorOverrideThreshold, interpolateAll, autoFillGradient);
     }
 
+    private void replayStateJournal() {
+        if (stateJournal == null) {
+            return;
+        }
+        stateJournal.replay(stateRegistry.values().stream().flatMap(List::stream).toList());
+    }
+
     public void start() {
         ZonedDateTime now = currentTime.get();
         scheduleSolarDataInfoLog();
+        scheduleRequestStatisticsLog();
         stateRegistry.values().stream()
                      .flatMap(states -> setupInitialStartup(states, now).stream())
                      .sorted(Comparator.comparing(ScheduledStateSnapshot::getId)
@@ -655,7 +784,7 @@ public final class HueScheduler implements Runnable {
         if (snapshot.isNullState()) return;
         long overlappingDelayInMs = getPotentialOverlappingDelayInMs(snapshot);
         LOG.debug("Schedule: {} in {}", snapshot, Duration.ofMillis(delayInMs + overlappingDelayInMs).withNanos(0));
-        stateScheduler.schedule(() -> {
+        stateScheduler.schedule(new TaskKey(snapshot, "state"), () -> getRequestPriority(snapshot).run(() -> {
             MDC.put("context", snapshot.getContextName());
             ZonedDateTime now = currentTime.get();
             if (snapshot.endsBefore(now)) {
@@ -681,6 +810,7 @@ public final class HueScheduler implements Runnable {
                     LOG.info("Turned on by synced scene and no interpolations: Skip re-apply.");
                     // record last put call to not trigger manual overrides for follow-up states
                     snapshot.recordLastPutCalls(getPutCallsWithAdjustedTr(snapshot, now, false));
+                    journalLastSeen(snapshot);
                     createPowerTransitionCopyAndReschedule(snapshot);
                     return;
                 } else {
@@ -715,11 +845,26 @@ public final class HueScheduler implements Runnable {
                 return;
             }
             snapshot.recordLastSeen(now);
+            journalLastSeen(snapshot);
             if (snapshot.isOff()) {
                 LOG.info("Turned off");
             }
             createPowerTransitionCopyAndReschedule(snapshot);
-        }, currentTime.get().plus(delayInMs + overlappingDelayInMs, ChronoUnit.MILLIS), snapshot.getEnd());
+        }), currentTime.get().plus(delayInMs + overlappingDelayInMs, ChronoUnit.MILLIS), snapshot.getEnd());
+    }
+
+    /**
+     * Re-applying a state after its lights have just been turned on is what the user is waiting for, so it is sent
+     * before any regularly scheduled update.
+     */
+    private RequestPriority getRequestPriority(ScheduledStateSnapshot snapshot) {
+        return wasJustPowerTransition(snapshot) ? RequestPriority.INTERACTIVE : RequestPriority.SCHEDULED;
+    }
+
+    private void journalLastSeen(ScheduledStateSnapshot snapshot) {
+        if (stateJournal != null) {
+            stateJournal.recordLastSeen(snapshot.getScheduledState());
+        }
     }
 
     private void createPowerTransitionCopyAndReschedule(ScheduledStateSnapshot snapshot) {
@@ -766,9 +911,10 @@ public final class HueScheduler implements Runnable {
 
     private void scheduleAsyncSceneSync(ScheduledStateSnapshot state, boolean justOnce) {
         if (sceneSyncDelayInSeconds == 0) {
-            syncScene(state, justOnce);
+            RequestPriority.BACKGROUND.run(() -> syncScene(state, justOnce));
         } else {
-            stateScheduler.schedule(() -> syncScene(state, justOnce),
+            stateScheduler.schedule(getSceneSyncTaskKey(state, justOnce),
+                    () -> RequestPriority.BACKGROUND.run(() -> syncScene(state, justOnce)),
                     currentTime.get().plusSeconds(sceneSyncDelayInSeconds), state.getEnd());
         }
     }
@@ -776,8 +922,11 @@ public final class HueScheduler implements Runnable {
     private void syncScene(ScheduledStateSnapshot state, boolean justOnce) {
         MDC.put("context", state.getContextName() + " (scene sync)");
         try {
-            stateRegistry.getAssignedGroups(state)
-                         .forEach(groupInfo -> syncScene(groupInfo.groupId(), stateRegistry.getPutCalls(groupInfo.groupLights())));
+            AsyncCalls.joinAll(stateRegistry.getAssignedGroups(state)
+                                            .stream()
+                                            .map(groupInfo -> syncScene(groupInfo.groupId(),
+                                                    stateRegistry.getPutCalls(groupInfo.groupLights())))
+                                            .toList());
             ZonedDateTime nextSyncTime = getNextChangeTime(state, null, currentTime.get());
             if (!justOnce && nextSyncTime != null) {
                 scheduleNextSceneSync(state, false, nextSyncTime);
@@ -789,12 +938,17 @@ public final class HueScheduler implements Runnable {
         MDC.remove("context");
     }
 
-    private void syncScene(String groupId, List<PutCall> putCalls) {
-        api.createOrUpdateScene(groupId, sceneSyncName, putCalls);
+    private CompletableFuture<Void> syncScene(String groupId, List<PutCall> putCalls) {
+        return virtualThreadApi.createOrUpdateSceneAsync(groupId, sceneSyncName, putCalls);
     }
 
     private void scheduleNextSceneSync(ScheduledStateSnapshot stateSnapshot, boolean justOnce, ZonedDateTime nextSyncTime) {
-        scheduleIfNotYetEnded(stateSnapshot, () -> syncScene(stateSnapshot, justOnce), nextSyncTime);
+        scheduleIfNotYetEnded(getSceneSyncTaskKey(stateSnapshot, justOnce), stateSnapshot,
+                () -> syncScene(stateSnapshot, justOnce), nextSyncTime);
+    }
+
+    private static TaskKey getSceneSyncTaskKey(ScheduledStateSnapshot state, boolean justOnce) {
+        return new TaskKey(state, justOnce ? "scene re-sync" : "scene sync");
     }
 
     private ZonedDateTime getNextChangeTime(ScheduledStateSnapshot state, PutCalls currentPutCalls, ZonedDateTime now) {
@@ -803,13 +957,14 @@ public final class HueScheduler implements Runnable {
                 colorTemperatureSyncThresholdKelvin, colorSyncThreshold);
     }
 
-    private void scheduleIfNotYetEnded(ScheduledStateSnapshot state, Runnable runnable, ZonedDateTime scheduledStart) {
+    private void scheduleIfNotYetEnded(TaskKey key, ScheduledStateSnapshot state, Runnable runnable,
+                                       ZonedDateTime scheduledStart) {
         ZonedDateTime end = state.getEnd();
-        stateScheduler.schedule(() -> {
+        stateScheduler.schedule(key, () -> {
             if (currentTime.get().isAfter(end)) {
                 return;
             }
-            runnable.run();
+            RequestPriority.BACKGROUND.run(runnable);
         }, scheduledStart, state.getEnd());
     }
 
@@ -825,7 +980,8 @@ public final class HueScheduler implements Runnable {
     }
 
     private void scheduleNextBackgroundInterpolation(ScheduledStateSnapshot state, ZonedDateTime nextChangeTime) {
-        scheduleIfNotYetEnded(state, () -> performBackgroundInterpolation(state), nextChangeTime);
+        scheduleIfNotYetEnded(new TaskKey(state, "interpolation"), state,
+                () -> performBackgroundInterpolation(state), nextChangeTime);
     }
 
     private void performBackgroundInterpolation(ScheduledStateSnapshot state) {
@@ -1034,14 +1190,14 @@ public final class HueScheduler implements Runnable {
             if (putCalls.isGeneralGroup()) {
                 PutCall putCall = putCalls.getFirst();
                 if (shouldControlIndividually(state)) {
-                    updateIndividualIgnoringError(getIndividualPutCalls(putCall, state.getId()));
+                    updateIndividualIgnoringError(state, getIndividualPutCalls(putCall, state.getId()));
                 } else {
                     api.putGroupState(putCall);
                 }
             } else {
                 List<PutCall> putCallList = putCalls.toList();
                 if (shouldControlIndividually(state)) {
-                    updateIndividualIgnoringError(putCallList);
+                    updateIndividualIgnoringError(state, putCallList);
                 } else {
                     api.putSceneState(putCalls.getId(), getCurrentlyOnPutCalls(putCalls));
                 }
@@ -1074,14 +1230,82 @@ public final class HueScheduler implements Runnable {
                   .toList();
     }
 
-    private void updateIndividualIgnoringError(List<PutCall> putCallList) {
-        for (PutCall call : putCallList) {
-            try {
-                api.putState(call);
-            } catch (ApiFailure e) {
-                LOG.trace("Unsupported api call for light id {}: {}", call.getId(), e.getLocalizedMessage());
+    private void updateIndividualIgnoringError(ScheduledStateSnapshot state, List<PutCall> putCallList) {
+        if (parallelIndividualLightUpdates) {
+            // the state task still waits for all updates, only the updates themselves run in parallel on virtual threads
+            AsyncCalls.joinAll(createParallelUpdates(state, putCallList));
+        } else {
+            putCallList.forEach(call -> putIgnoringError(call, api::putState));
+        }
+    }
+
+    private void putIgnoringError(PutCall call, Consumer<PutCall> putCall) {
+        try {
+            putCall.accept(call);
+        } catch (ApiFailure e) {
+            logIgnoredError(call, e);
+        }
+    }
+
+    private static CompletableFuture<Void> putIgnoringErrorAsync(PutCall call,
+                                                                 Function<PutCall, CompletableFuture<Void>> putCall) {
+        return putCall.apply(call).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            if (cause instanceof ApiFailure apiFailure) {
+                logIgnoredError(call, apiFailure);
+                return null;
+            }
+            throw new CompletionException(cause);
+        });
+    }
+
+    private static void logIgnoredError(PutCall call, ApiFailure e) {
+        LOG.trace("Unsupported api call for id {}: {}", call.getId(), e.getLocalizedMessage());
+    }
+
+    /**
+     * Starts the updates on virtual threads without waiting for them to finish. The number of concurrent requests is
+     * still limited by the http client.
+     * <p>
+     * Collapses lights that share the same state and together form a smaller group into a single group update. As a
+     * group update uses as many rate limit permits as {@link HueApiImpl#GROUP_UPDATE_PERMITS} light updates, this is only
+     * done for groups with at least that many lights. It is also skipped for off updates, as they have to be performed
+     * on each light individually.
+     */
+    private List<CompletableFuture<Void>> createParallelUpdates(ScheduledStateSnapshot state, List<PutCall> putCallList) {
+        Map<String, PutCall> lightPutCalls = new LinkedHashMap<>();
+        putCallList.forEach(putCall -> lightPutCalls.put(putCall.getId(), putCall));
+        List<CompletableFuture<Void>> updates = new ArrayList<>();
+        if (!isOffAndDoesNotTurnOn(state)) {
+            for (GroupInfo groupInfo : stateRegistry.findContainedGroups(state)) {
+                PutCall sharedPutCall = getSharedPutCall(groupInfo.groupLights(), lightPutCalls);
+                if (sharedPutCall != null) {
+                    groupInfo.groupLights().forEach(lightPutCalls::remove);
+                    PutCall groupPutCall = sharedPutCall.toBuilder().id(groupInfo.groupId()).build();
+                    updates.add(putIgnoringErrorAsync(groupPutCall, virtualThreadApi::putGroupStateAsync));
+                }
+            }
+        }
+        lightPutCalls.values()
+                     .forEach(putCall -> updates.add(putIgnoringErrorAsync(putCall, virtualThreadApi::putStateAsync)));
+        return updates;
+    }
+
+    private static PutCall getSharedPutCall(List<String> groupLights, Map<String, PutCall> lightPutCalls) {
+        if (groupLights.size() < HueApiImpl.GROUP_UPDATE_PERMITS) {
+            return null;
+        }
+        PutCall first = lightPutCalls.get(groupLights.getFirst());
+        if (first == null) {
+            return null;
+        }
+        for (String lightId : groupLights) {
+            PutCall putCall = lightPutCalls.get(lightId);
+            if (putCall == null || !first.hasSameLightState(putCall)) {
+                return null;
             }
         }
+        return first;
     }
 
     private PutCalls getPutCallsWithAdjustedTr(ScheduledStateSnapshot state, ZonedDateTime now, boolean performedInterpolation) {
@@ -1162,6 +1386,33 @@ public final class HueScheduler implements Runnable {
         lightEventListener.runOnPowerTransition(snapshot.getId(), () -> schedule(snapshot, powerTransitionRescheduleDelayInMs));
     }
 
+    private void scheduleRequestStatisticsLog() {
+        if (httpResourceProvider == null && adaptiveRateLimiter == null && hueApi == null
+            && !(stateScheduler instanceof TimingWheelStateScheduler)) {
+            return;
+        }
+        stateScheduler.scheduleAtFixedRate(() -> {
+            MDC.put("context", "info");
+            if (adaptiveRateLimiter != null) {
+                LOG.info("Current request rate: {} per second", String.format("%.1f", adaptiveRateLimiter.getCurrentRate()));
+            }
+            if (httpResourceProvider != null) {
+                httpResourceProvider.getQueueWaitTimes().forEach((priority, waitTime) ->
+                        LOG.debug("Request queue wait time ({}): {} requests, avg {} ms, max {} ms", priority,
+                                waitTime.count(), waitTime.getAverage().toMillis(), waitTime.getMax().toMillis()));
+            }
+            if (hueApi != null) {
+                CacheStats stats = hueApi.getRequestBodyCacheStats();
+                LOG.debug("Request body cache: {} hits, {} misses, hit rate {}%", stats.hitCount(), stats.missCount(),
+                        String.format("%.1f", stats.hitRate() * 100));
+            }
+            if (stateScheduler instanceof TimingWheelStateScheduler timingWheel) {
+                LOG.debug("Scheduler queue: {} pending tasks, {} superseded tasks dropped",
+                        timingWheel.getQueueDepth(), timingWheel.getSupersededTaskCount());
+            }
+        }, 60, 60, TimeUnit.MINUTES);
+    }
+
     private void scheduleSolarDataInfoLog() {
         logSolarDataInfo();
         ZonedDateTime now = currentTime.get();
@@ -1179,7 +1430,7 @@ public final class HueScheduler implements Runnable {
     private void scheduleApiCacheClear() {
         // todo: remove when all api clients support event based cache invalidation
         stateScheduler.scheduleAtFixedRate(
-                api::clearCaches, apiCacheInvalidationIntervalInMinutes, apiCacheInvalidationIntervalInMinutes, TimeUnit.MINUTES);
+                this::clearApiCaches, apiCacheInvalidationIntervalInMinutes, apiCacheInvalidationIntervalInMinutes, TimeUnit.MINUTES);
         stateScheduler.scheduleAtFixedRate(
                 startTimeProvider::clearCaches, 3, 3, TimeUnit.DAYS);
     }
@@ -1194,7 +1445,7 @@ public final class HueScheduler implements Runnable {
      * Since Home Assistant synced scenes are only temporary, we have to re-sync them on each HA restart we detect.
      */
     void clearCachesAndReSyncScenes() {
-        api.clearCaches();
+        clearApiCaches();
         if (enableSceneSync) {
             stateRegistry.findCurrentlyActiveStates()
                          .forEach(state -> scheduleAsyncSceneSync(state, true));
@@ -1286,6 +1537,16 @@ public final class HueScheduler implements Runnable {
         return manualOverrideTracker;
     }
 
+    private void clearApiCaches() {
+        api.clearCaches();
+        stateRegistry.clearGroupTopology();
+    }
+
+    private void onResourceModified(String type, String id, Object content) {
+        api.onModification(type, id, content);
+        stateRegistry.onResourceModified(type);
+    }
+
     void onSceneResourceModified(String sceneId) {
         try {
             reloadSceneStates(sceneId);
@@ -1344,4 +1605,15 @@ public final class HueScheduler implements Runnable {
         state.updateLightStates(createParser().loadLightStates(sceneId,
                 state.getSceneBrightnessModifier(), state.getSceneOnModifier()));
     }
+
+    /**
+     * Identifies the tasks of a state snapshot, so that rescheduling them replaces the pending ones. All tasks of the
+     * same light or group share one lane, so that they don't run at the same time.
+     */
+    private record TaskKey(ScheduledStateSnapshot snapshot, String type) implements StateScheduler.LaneKey {
+        @Override
+        public Object getLane() {
+            return snapshot.getId();
+        }
+    }
 }
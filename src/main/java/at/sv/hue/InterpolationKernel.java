@@ -0,0 +1,96 @@
+package at.sv.hue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Primitive arithmetic for {@link StateInterpolator}: P = P0 + t(P1 - P0).
+ * <p>
+ * The values of all lights are passed as parallel arrays (one slot per light), with missing integer values encoded as
+ * {@link #NONE} and missing double values as {@code NaN}. The rounding is the same as with plain {@link BigDecimal}
+ * arithmetic: The interpolated time is rounded half-up to seven decimals, integers to whole numbers and doubles to
+ * five decimals. Integers are calculated exactly on scaled longs. Doubles are calculated in floating point, and only
+ * fall back to {@link BigDecimal} if the result is too close to a rounding boundary to decide.
+ */
+final class InterpolationKernel {
+
+    static final int NONE = Integer.MIN_VALUE;
+
+    private static final int TIME_SCALE = 7;
+    private static final long TIME_FACTOR = 10_000_000L;
+    private static final int DOUBLE_SCALE = 5;
+    private static final double DOUBLE_FACTOR = 100_000.0;
+    private static final double TIE_TOLERANCE = 1e-6;
+
+    /**
+     * The interpolated time t, scaled by {@link #TIME_FACTOR}
+     */
+    private final long time;
+
+    /**
+     * t = (current_time - start_time) / (end_time - start_time)
+     */
+    InterpolationKernel(long elapsedMillis, long totalMillis) {
+        time = divideHalfUp(Math.multiplyExact(elapsedMillis, TIME_FACTOR), totalMillis);
+    }
+
+    /**
+     * Interpolates all slots, storing the result in {@code previous}. If the target is missing, the previous value is
+     * kept. If the previous value is missing, the result is missing as well.
+     */
+    void interpolateIntegers(int[] previous, int[] target) {
+        for (int i = 0; i < previous.length; i++) {
+            previous[i] = interpolateInteger(previous[i], target[i]);
+        }
+    }
+
+    /**
+     * Interpolates all slots, storing the result in {@code previous}. Slots missing on either side are not touched.
+     */
+    void interpolateDoubles(double[] previous, double[] target) {
+        for (int i = 0; i < previous.length; i++) {
+            if (!Double.isNaN(previous[i]) && !Double.isNaN(target[i])) {
+                previous[i] = interpolateDouble(previous[i], target[i]);
+            }
+        }
+    }
+
+    int interpolateInteger(int previous, int target) {
+        if (target == NONE) {
+            return previous;
+        }
+        if (previous == NONE) {
+            return NONE;
+        }
+        return Math.toIntExact(divideHalfUp(previous * TIME_FACTOR + time * (target - previous), TIME_FACTOR));
+    }
+
+    double interpolateDouble(double previous, double target) {
+        double diff = target - previous;
+        double scaled = (previous + diff * time / TIME_FACTOR) * DOUBLE_FACTOR;
+        double fraction = scaled - Math.floor(scaled);
+        if (Math.abs(fraction - 0.5) < TIE_TOLERANCE) {
+            return interpolateDoubleExactly(previous, diff);
+        }
+        return Math.floor(scaled + 0.5) / DOUBLE_FACTOR;
+    }
+
+    private double interpolateDoubleExactly(double previous, double diff) {
+        return BigDecimal.valueOf(previous)
+                         .add(BigDecimal.valueOf(time, TIME_SCALE).multiply(BigDecimal.valueOf(diff)))
+                         .setScale(DOUBLE_SCALE, RoundingMode.HALF_UP)
+                         .doubleValue();
+    }
+
+    /**
+     * Divides and rounds half away from zero, like {@link RoundingMode#HALF_UP}.
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (2 * Math.abs(remainder) >= Math.abs(divisor)) {
+            quotient += Long.signum(dividend) * Long.signum(divisor);
+        }
+        return quotient;
+    }
+}
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -59,6 +60,22 @@ public final class PutCalls {
         return stream().findFirst().orElseThrow();
     }
 
+    /**
+     * Like {@link #getFirst()}, but returns the stored put call without copying it to apply the transition time.
+     * Callers must not modify it.
+     */
+    PutCall getFirstWithoutTransitionTime() {
+        return putCalls.getFirst();
+    }
+
+    /**
+     * Like {@link #stream()}, but iterates the stored put calls without copying them to apply the transition time.
+     * Callers must not modify them.
+     */
+    void forEachWithoutTransitionTime(Consumer<PutCall> action) {
+        putCalls.forEach(action);
+    }
+
     public PutCall get(String id) {
         return map.get(id);
     }
@@ -280,6 +280,13 @@ public final class ScheduledState { // todo: a better name would be StateDefinit
         }
     }
 
+    /**
+     * @return identifies the original state across restarts, as long as its id, start and days of week are unchanged
+     */
+    public String getJournalKey() {
+        return originalState.getId() + " " + originalState.startString + " " + originalState.daysOfWeek;
+    }
+
     public boolean isSameState(ScheduledState state) {
         return this == state || originalState == state;
     }
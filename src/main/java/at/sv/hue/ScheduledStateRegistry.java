@@ -23,11 +23,33 @@ public class ScheduledStateRegistry {
     private final Map<String, List<ScheduledState>> lightStates;
     private final Supplier<ZonedDateTime> currentTime;
     private final HueApi api;
+    private volatile GroupTopology groupTopology;
 
     public ScheduledStateRegistry(Supplier<ZonedDateTime> currentTime, HueApi api) {
         this.currentTime = currentTime;
         this.api = api;
         lightStates = new LinkedHashMap<>();
+        groupTopology = new GroupTopology(api);
+    }
+
+    /**
+     * Discards the known group assignments of lights if rooms, zones or devices have been modified, or if the members
+     * of a Home Assistant group changed.
+     *
+     * @param type the type of the modified resource, e.g. "light", "zone", or "group" for HA group membership changes.
+     *             Can be null.
+     */
+    public void onResourceModified(String type) {
+        if ("room".equals(type) || "zone".equals(type) || "device".equals(type) || "group".equals(type)) {
+            clearGroupTopology();
+        }
+    }
+
+    /**
+     * Discards the known group assignments of lights, so that they are looked up again on next use.
+     */
+    public void clearGroupTopology() {
+        groupTopology = new GroupTopology(api);
     }
 
     public void addState(ScheduledState state) {
@@ -87,17 +109,18 @@ public class ScheduledStateRegistry {
 
     public long countOverlappingGroupStatesWithMoreLights(ScheduledStateSnapshot state) {
         List<String> groupLights = getGroupLights(state);
-        return getAssignedGroupsSortedBySizeDesc(groupLights)
-                .stream()
-                .filter(groupInfo -> groupInfo.groupLights().size() > groupLights.size())
-                .map(GroupInfo::groupId)
-                .filter(lightStates::containsKey)
-                .count();
+        long count = 0;
+        for (GroupInfo groupInfo : groupTopology.getAssignedGroupsSortedBySizeDesc(groupLights)) {
+            if (groupInfo.groupLights().size() > groupLights.size() && lightStates.containsKey(groupInfo.groupId())) {
+                count++;
+            }
+        }
+        return count;
     }
 
     private List<String> getGroupLights(ScheduledStateSnapshot state) {
         if (state.isGroupState()) {
-            return api.getGroupLights(state.getId());
+            return groupTopology.getGroupLights(state.getId());
         } else {
             return List.of(state.getId());
         }
@@ -105,22 +128,24 @@ public class ScheduledStateRegistry {
 
     public List<GroupInfo> getAssignedGroups(ScheduledStateSnapshot state) {
         List<String> groupLights = getGroupLights(state);
-        List<GroupInfo> assignedGroups = getAssignedGroupsSortedBySizeDesc(groupLights);
+        List<GroupInfo> assignedGroups = groupTopology.getAssignedGroupsSortedBySizeDesc(groupLights);
         List<GroupInfo> additionalAreas = api.getAdditionalAreas(groupLights);
         return Stream.concat(assignedGroups.stream(), additionalAreas.stream())
                      .distinct()
                      .toList();
     }
 
-    private List<GroupInfo> getAssignedGroupsSortedBySizeDesc(List<String> lightIds) {
-        return lightIds.stream()
-                       .map(api::getAssignedGroups)
-                       .flatMap(Collection::stream)
-                       .distinct()
-                       .map(groupId -> new GroupInfo(groupId, api.getGroupLights(groupId)))
-                       // larger groups first, so that smaller groups can override the larger ones
-                       .sorted(Comparator.comparingInt((GroupInfo groupInfo) -> groupInfo.groupLights().size()).reversed())
-                       .toList();
+    /**
+     * @return the groups whose lights are all part of the given group state, excluding the group itself. Larger groups
+     * first.
+     */
+    public List<GroupInfo> findContainedGroups(ScheduledStateSnapshot state) {
+        List<String> groupLights = getGroupLights(state);
+        return groupTopology.getAssignedGroupsSortedBySizeDesc(groupLights)
+                            .stream()
+                            .filter(groupInfo -> !groupInfo.groupId().equals(state.getId()))
+                            .filter(groupInfo -> groupLights.containsAll(groupInfo.groupLights()))
+                            .toList();
     }
 
     /**
@@ -141,7 +166,7 @@ public class ScheduledStateRegistry {
     }
 
     private Map<String, PutCall> getActivePutCallsFromGroups(List<String> groupLights, ZonedDateTime now) {
-        return getAssignedGroupsSortedBySizeDesc(groupLights)
+        return groupTopology.getAssignedGroupsSortedBySizeDesc(groupLights)
                 .stream()
                 .map(GroupInfo::groupId)
                 .flatMap(groupId -> findActiveGroupPutCalls(groupId, groupLights, now))
@@ -193,18 +218,11 @@ public class ScheduledStateRegistry {
     }
 
     private Stream<PutCall> createOverriddenLightPutCalls(PutCalls otherGroupPutCalls, List<String> groupLights) {
-        return findOverlappingLights(otherGroupPutCalls.getId(), groupLights)
+        return groupTopology.getOverlappingLights(otherGroupPutCalls.getId(), groupLights)
                 .stream()
                 .map(lightId -> convertToLightPutCall(otherGroupPutCalls, lightId));
     }
 
-    private List<String> findOverlappingLights(String otherGroupId, List<String> groupLights) {
-        List<String> otherGroupLights = api.getGroupLights(otherGroupId);
-        List<String> overlappingLights = new ArrayList<>(groupLights);
-        overlappingLights.retainAll(otherGroupLights);
-        return overlappingLights;
-    }
-
     private static PutCall convertToLightPutCall(PutCalls putCalls, String lightId) {
         if (putCalls.isGeneralGroup()) {
             return putCalls.getFirst().toBuilder().id(lightId).build();
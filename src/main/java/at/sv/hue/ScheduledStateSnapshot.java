@@ -13,6 +13,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.LongPredicate;
 
 import static at.sv.hue.ScheduledState.MAX_TRANSITION_TIME_MS;
 
@@ -358,6 +359,17 @@ public class ScheduledStateSnapshot {
         return getInterpolatedPutCallsIfNeeded(now) != null;
     }
 
+    /**
+     * Returns the first full minute after {@code now}, at which the interpolated state differs significantly from the
+     * given current put calls, or the defined start if there is no such minute.
+     * <p>
+     * If the current state is the interpolated state at {@code now}, either computed here or given by the previous
+     * background interpolation, and only brightness and color temperature are interpolated, the difference of each
+     * property to the current state only grows the further we move along the interpolation path. The remaining minutes
+     * are then split into a leading part that is still similar, and a trailing part that differs, so we bisect instead
+     * of checking every minute. For colors, gamut correction and color space conversions break this, as does a given
+     * current state that is not on the path, so we scan linearly.
+     */
     public ZonedDateTime getNextSignificantPropertyChangeTime(PutCalls currentPutCalls, ZonedDateTime now, int brightnessThreshold,
                                                               int colorTemperatureThresholdKelvin, double colorThreshold) {
         if (!hasTransitionBefore()) {
@@ -370,23 +382,84 @@ public class ScheduledStateSnapshot {
         if (isAlreadyReached(now)) {
             return null; // the state is already reached
         }
-        if (currentPutCalls == null) {
-            currentPutCalls = getInterpolatedFullPicturePutCalls(now);
-        }
-        ZonedDateTime nextTime = now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        PutCalls interpolated = getInterpolatedFullPicturePutCalls(now);
+        PutCalls current = currentPutCalls != null ? currentPutCalls : interpolated;
+        ZonedDateTime firstTime = now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
         ZonedDateTime endTime = getDefinedStart();
-        while (nextTime.isBefore(endTime)) {
-            StateInterpolator futureInterpolator = new StateInterpolator(this, previousState, nextTime);
-            PutCalls future = futureInterpolator.getInterpolatedPutCalls();
-            if (future != null && currentPutCalls.hasNotSimilarLightState(future, brightnessThreshold,
-                    colorTemperatureThresholdKelvin, colorThreshold)) {
-                log.trace("Next property change in {}: {}. Current: {}",
-                        Duration.between(now, nextTime), future, currentPutCalls);
-                return nextTime;
+        long minutes = getMinutesBefore(firstTime, endTime);
+        LongPredicate differsSignificantly = minute -> {
+            PutCalls future = new StateInterpolator(this, previousState, firstTime.plusMinutes(minute)).getInterpolatedPutCalls();
+            return future != null && current.hasNotSimilarLightState(future, brightnessThreshold,
+                    colorTemperatureThresholdKelvin, colorThreshold);
+        };
+        long nextMinute;
+        if (isSameLightState(current, interpolated) && !hasColorAlongPath(previousState, now)) {
+            nextMinute = bisectFirstMatch(minutes, differsSignificantly);
+        } else {
+            nextMinute = scanFirstMatch(minutes, differsSignificantly);
+        }
+        if (nextMinute == -1) {
+            return endTime; // Ensure last update at the end time
+        }
+        ZonedDateTime nextTime = firstTime.plusMinutes(nextMinute);
+        log.trace("Next property change in {}. Current: {}", Duration.between(now, nextTime), current);
+        return nextTime;
+    }
+
+    private static boolean isSameLightState(PutCalls current, PutCalls interpolated) {
+        return current == interpolated || interpolated != null && !current.hasNotSimilarLightState(interpolated, 1, 1, 0);
+    }
+
+    private boolean hasColorAlongPath(ScheduledStateSnapshot previousState, ZonedDateTime now) {
+        return hasColor(previousState.getFullPicturePutCalls(now)) || hasColor(getFullPicturePutCalls(now));
+    }
+
+    private static boolean hasColor(PutCalls putCalls) {
+        return putCalls != null && putCalls.stream().anyMatch(putCall -> putCall.getX() != null || putCall.getGradient() != null);
+    }
+
+    /**
+     * @return the first minute in {@code [0, minutes)} matching the given predicate, or -1 if there is none. Assumes
+     * that once the predicate matches, it also matches all later minutes.
+     */
+    private static long bisectFirstMatch(long minutes, LongPredicate predicate) {
+        if (minutes == 0 || !predicate.test(minutes - 1)) {
+            return -1;
+        }
+        long low = 0;
+        long high = minutes - 1; // known to match
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (predicate.test(mid)) {
+                high = mid;
+            } else {
+                low = mid + 1;
             }
-            nextTime = nextTime.plusMinutes(1);
         }
-        return endTime; // Ensure last update at the end time
+        return high;
+    }
+
+    /**
+     * @return the first minute in {@code [0, minutes)} matching the given predicate, or -1 if there is none
+     */
+    private static long scanFirstMatch(long minutes, LongPredicate predicate) {
+        for (long minute = 0; minute < minutes; minute++) {
+            if (predicate.test(minute)) {
+                return minute;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the number of full minute steps starting at {@code start}, that are strictly before {@code end}
+     */
+    private static long getMinutesBefore(ZonedDateTime start, ZonedDateTime end) {
+        long millis = Duration.between(start, end).toMillis();
+        if (millis <= 0) {
+            return 0;
+        }
+        return Math.ceilDiv(millis, Duration.ofMinutes(1).toMillis());
     }
 
     public void recordLastPutCalls(PutCalls putCalls) {
@@ -5,14 +5,13 @@ import at.sv.hue.color.ColorModeConverter;
 import at.sv.hue.color.XYColorGamutCorrection;
 import lombok.RequiredArgsConstructor;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 @RequiredArgsConstructor
 public final class StateInterpolator {
@@ -32,71 +31,134 @@ public final class StateInterpolator {
      * P = P0 + t(P1 - P0)
      */
     private PutCalls interpolate() {
-        BigDecimal interpolatedTime = getInterpolatedTime();
+        InterpolationKernel kernel = createKernel();
         PutCalls previous = previousState.getFullPicturePutCalls(dateTime);
         PutCalls target = state.getFullPicturePutCalls(dateTime);
 
-        return interpolate(previous, target, interpolatedTime);
+        return interpolate(previous, target, kernel);
     }
 
-    private PutCalls interpolate(PutCalls previous, PutCalls target, BigDecimal interpolatedTime) {
-        List<PutCall> putCalls = new ArrayList<>();
+    private PutCalls interpolate(PutCalls previous, PutCalls target, InterpolationKernel kernel) {
+        List<PutCall> previousPutCalls = new ArrayList<>();
+        List<PutCall> targetPutCalls = new ArrayList<>();
         if (previous.isGeneralGroup()) {
-            PutCall previousPutCall = previous.getFirst();
-            target.toList().forEach(targetPutCall -> {
-                PutCall putCall = interpolate(previousPutCall, targetPutCall, interpolatedTime);
-                putCall.setId(targetPutCall.getId());
-                putCalls.add(putCall);
+            PutCall previousPutCall = previous.getFirstWithoutTransitionTime();
+            target.forEachWithoutTransitionTime(targetPutCall -> {
+                previousPutCalls.add(previousPutCall);
+                targetPutCalls.add(targetPutCall);
             });
         } else if (target.isGeneralGroup()) {
-            PutCall targetPutCall = target.getFirst();
-            previous.toList().forEach(previousPutCall -> {
-                PutCall putCall = interpolate(previousPutCall, targetPutCall, interpolatedTime);
-                putCalls.add(putCall);
+            PutCall targetPutCall = target.getFirstWithoutTransitionTime();
+            previous.forEachWithoutTransitionTime(previousPutCall -> {
+                previousPutCalls.add(previousPutCall);
+                targetPutCalls.add(targetPutCall);
             });
         } else {
-            previous.toList().forEach(previousPutCall -> {
+            previous.forEachWithoutTransitionTime(previousPutCall -> {
                 PutCall targetPutCall = target.get(previousPutCall.getId());
                 if (targetPutCall == null) {
                     return; // skip lights that are not part of the target state
                 }
-                PutCall putCall = interpolate(previousPutCall, targetPutCall, interpolatedTime);
-                putCalls.add(putCall);
+                previousPutCalls.add(previousPutCall);
+                targetPutCalls.add(targetPutCall);
             });
         }
+        List<PutCall> putCalls = interpolate(previousPutCalls, targetPutCalls, previous.getTransitionTime(), kernel);
+        if (previous.isGeneralGroup()) {
+            for (int i = 0; i < putCalls.size(); i++) {
+                putCalls.get(i).setId(targetPutCalls.get(i).getId());
+            }
+        }
         return new PutCalls(previous.getId(), putCalls, previous.getTransitionTime(), previous.isGroupUpdate());
     }
 
-    private PutCall interpolate(PutCall previous, PutCall target, BigDecimal interpolatedTime) {
-        PutCall putCall = copy(previous);
-        convertColorModeIfNeeded(putCall, target);
+    /**
+     * Interpolates the light pairs at the same index. The numeric properties of all lights are first collected into
+     * parallel arrays, interpolated at once by the kernel, and then written back to copies of the previous put calls.
+     */
+    private static List<PutCall> interpolate(List<PutCall> previousPutCalls, List<PutCall> targetPutCalls,
+                                             Integer transitionTime, InterpolationKernel kernel) {
+        int size = previousPutCalls.size();
+        List<PutCall> putCalls = new ArrayList<>(size);
+        int[] bri = new int[size];
+        int[] targetBri = new int[size];
+        int[] ct = new int[size];
+        int[] targetCt = new int[size];
+        double[] x = new double[size];
+        double[] y = new double[size];
+        double[] targetX = new double[size];
+        double[] targetY = new double[size];
+        for (int i = 0; i < size; i++) {
+            PutCall target = targetPutCalls.get(i);
+            PutCall putCall = copy(previousPutCalls.get(i));
+            putCall.setTransitionTime(transitionTime);
+            convertColorModeIfNeeded(putCall, target);
+            putCalls.add(putCall);
+
+            bri[i] = toPrimitive(getBriConsideringOff(putCall));
+            targetBri[i] = toPrimitive(getBriConsideringOff(target));
+            ct[i] = toPrimitive(putCall.getCt());
+            targetCt[i] = toPrimitive(target.getCt());
+            boolean hasXY = hasXY(putCall);
+            x[i] = hasXY ? putCall.getX() : Double.NaN;
+            y[i] = hasXY ? putCall.getY() : Double.NaN;
+            boolean targetHasXY = hasXY(target);
+            targetX[i] = targetHasXY ? target.getX() : Double.NaN;
+            targetY[i] = targetHasXY ? target.getY() : Double.NaN;
+        }
 
-        putCall.setBri(interpolateInteger(interpolatedTime, getBriConsideringOff(putCall), getBriConsideringOff(target)));
-        putCall.setCt(interpolateInteger(interpolatedTime, putCall.getCt(), target.getCt()));
-        var xy = interpolateXY(interpolatedTime, putCall.getXY(), target.getXY(), target.getGamut());
-        if (xy != null) {
-            putCall.setX(xy.first());
-            putCall.setY(xy.second());
-        } else {
+        kernel.interpolateIntegers(bri, targetBri);
+        kernel.interpolateIntegers(ct, targetCt);
+        kernel.interpolateDoubles(x, targetX);
+        kernel.interpolateDoubles(y, targetY);
+
+        for (int i = 0; i < size; i++) {
+            PutCall previous = previousPutCalls.get(i);
+            PutCall target = targetPutCalls.get(i);
+            PutCall putCall = putCalls.get(i);
+            putCall.setBri(toObject(bri[i]));
+            putCall.setCt(toObject(ct[i]));
+            setInterpolatedXY(putCall, x[i], y[i], hasXY(target), target.getGamut());
+            putCall.setGradient(interpolateGradient(kernel, putCall.getGradient(), target.getGradient(),
+                    target.getGamut()));
+
+            putCall.setOn(null); // do not per default reuse "on" property for interpolation
+            if (target.isOn()) {
+                putCall.setOn(true); // the current state is turning lights on, also set "on" property for interpolated state
+            }
+            if (previous.isOff() && target.isOff()) {
+                putCall.setOn(false);
+                putCall.setBri(null);
+            }
+            if (putCall.getBri() != null && putCall.getBri() == 0) {
+                putCall.setBri(1); // min brightness is 1 if light is on
+            }
+        }
+        return putCalls;
+    }
+
+    private static void setInterpolatedXY(PutCall putCall, double x, double y, boolean targetHasXY, Double[][] gamut) {
+        if (Double.isNaN(x)) { // todo: no mutation coverage
             putCall.setX(null);
             putCall.setY(null);
+        } else if (targetHasXY) {
+            XYColorGamutCorrection correction = new XYColorGamutCorrection(x, y, gamut);
+            putCall.setX(correction.getX());
+            putCall.setY(correction.getY());
         }
-        putCall.setGradient(interpolateGradient(interpolatedTime, putCall.getGradient(), target.getGradient(),
-                target.getGamut()));
+        // else: no xy at target, keep previous xy as it is
+    }
 
-        putCall.setOn(null); // do not per default reuse "on" property for interpolation
-        if (target.isOn()) {
-            putCall.setOn(true); // the current state is turning lights on, also set "on" property for interpolated state
-        }
-        if (previous.isOff() && target.isOff()) {
-            putCall.setOn(false);
-            putCall.setBri(null);
-        }
-        if (putCall.getBri() != null && putCall.getBri() == 0) {
-            putCall.setBri(1); // min brightness is 1 if light is on
-        }
+    private static boolean hasXY(PutCall putCall) {
+        return putCall.getX() != null && putCall.getY() != null;
+    }
+
+    private static int toPrimitive(Integer value) {
+        return value == null ? InterpolationKernel.NONE : value;
+    }
 
-        return putCall;
+    private static Integer toObject(int value) {
+        return value == InterpolationKernel.NONE ? null : value;
     }
 
     private static Integer getBriConsideringOff(PutCall putCall) {
@@ -165,57 +227,18 @@ public final class StateInterpolator {
     /**
      * t = (current_time - start_time) / (end_time - start_time)
      */
-    private BigDecimal getInterpolatedTime() {
+    private InterpolationKernel createKernel() {
         Duration durationAfterStart = Duration.between(state.getStart(), dateTime);
         Duration totalDuration = Duration.between(state.getStart(), state.getDefinedStart());
-        return BigDecimal.valueOf(durationAfterStart.toMillis())
-                         .divide(BigDecimal.valueOf(totalDuration.toMillis()), 7, RoundingMode.HALF_UP);
+        return new InterpolationKernel(durationAfterStart.toMillis(), totalDuration.toMillis());
     }
 
     private static void convertColorModeIfNeeded(PutCall previousPutCall, PutCall target) {
         ColorModeConverter.convertIfNeeded(previousPutCall, target.getColorMode());
     }
 
-    private Integer interpolateInteger(BigDecimal interpolatedTime, Integer previous, Integer target) {
-        if (target == null) {
-            return previous;
-        }
-        if (previous == null) {
-            return null;
-        }
-        BigDecimal diff = BigDecimal.valueOf(target - previous);
-        return BigDecimal.valueOf(previous)
-                         .add(interpolatedTime.multiply(diff))
-                         .setScale(0, RoundingMode.HALF_UP)
-                         .intValue();
-    }
-
-    private Pair<Double, Double> interpolateXY(BigDecimal interpolatedTime, Pair<Double, Double> previous,
-                                               Pair<Double, Double> target, Double[][] gamut) {
-        if (target == null) { // todo: no mutation coverage
-            return previous;
-        }
-        if (previous == null) { // todo: no mutation coverage
-            return null;
-        }
-
-        Double x = interpolateDouble(interpolatedTime, previous.first(), target.first());
-        Double y = interpolateDouble(interpolatedTime, previous.second(), target.second());
-
-        XYColorGamutCorrection correction = new XYColorGamutCorrection(x, y, gamut);
-        return Pair.of(correction.getX(), correction.getY());
-    }
-
-    private Double interpolateDouble(BigDecimal interpolatedTime, Double previous, Double target) {
-        BigDecimal diff = BigDecimal.valueOf(target - previous);
-        return BigDecimal.valueOf(previous)
-                         .add(interpolatedTime.multiply(diff))
-                         .setScale(5, RoundingMode.HALF_UP)
-                         .doubleValue();
-    }
-
-    private Gradient interpolateGradient(BigDecimal interpolatedTime, Gradient previous, Gradient target,
-                                         Double[][] gamut) {
+    private static Gradient interpolateGradient(InterpolationKernel kernel, Gradient previous, Gradient target,
+                                                Double[][] gamut) {
         if (target == null) { // todo: no mutation coverage
             return previous;
         }
@@ -231,11 +254,10 @@ public final class StateInterpolator {
         for (int i = 0; i < maxPoints; i++) {
             double pos = (double) i / (double) (maxPoints - 1);
 
-            var p = evalAt(previousPoints, pos);
-            var t = evalAt(targetPoints, pos);
-
-            Double x = interpolateDouble(interpolatedTime, p.first(), t.first());
-            Double y = interpolateDouble(interpolatedTime, p.second(), t.second());
+            double x = kernel.interpolateDouble(evalAt(previousPoints, pos, Pair::first),
+                    evalAt(targetPoints, pos, Pair::first));
+            double y = kernel.interpolateDouble(evalAt(previousPoints, pos, Pair::second),
+                    evalAt(targetPoints, pos, Pair::second));
 
             XYColorGamutCorrection correction = new XYColorGamutCorrection(x, y, gamut);
             points.add(Pair.of(correction.getX(), correction.getY()));
@@ -244,9 +266,10 @@ public final class StateInterpolator {
     }
 
     /**
-     * Evaluate within a polyline of xy points at normalized position in [0,1].
+     * Evaluate one coordinate within a polyline of xy points at normalized position in [0,1].
      */
-    private static Pair<Double, Double> evalAt(List<Pair<Double, Double>> points, double position) {
+    private static double evalAt(List<Pair<Double, Double>> points, double position,
+                                 ToDoubleFunction<Pair<Double, Double>> coordinate) {
         int n = points.size();
 
         double f = position * (n - 1);
@@ -254,10 +277,8 @@ public final class StateInterpolator {
         int i1 = Math.min(i0 + 1, n - 1);
         double w = f - i0;
 
-        var a = points.get(i0);
-        var b = points.get(i1);
-        double x = a.first() + w * (b.first() - a.first());
-        double y = a.second() + w * (b.second() - a.second());
-        return Pair.of(x, y);
+        double a = coordinate.applyAsDouble(points.get(i0));
+        double b = coordinate.applyAsDouble(points.get(i1));
+        return a + w * (b - a);
     }
 }
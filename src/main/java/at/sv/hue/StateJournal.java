@@ -0,0 +1,368 @@
+package at.sv.hue;
+
+import at.sv.hue.api.ManualOverrideTracker;
+import at.sv.hue.api.PutCall;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Append-only journal of the facts that would otherwise be lost on restart: the manual override flags of each light and
+ * group, and the last seen time and put calls of each state. Every change is appended as one JSON line. Loading the file
+ * keeps the latest entry per key, which is then replayed before the initial schedule.
+ * <p>
+ * The file is compacted, i.e., rewritten with only the latest entries, when loading it and once it grows much larger
+ * than the number of live entries. Entries older than {@link #MAX_REPLAY_AGE} are not replayed, as the lights have
+ * likely been turned off and on again in the meantime. Writing the journal is best effort; failures are only logged.
+ * <p>
+ * Entries are written by a background thread, so that recording a change does not block on disk IO. Entries recorded
+ * in quick succession are written with a single flush.
+ */
+@Slf4j
+public final class StateJournal {
+
+    static final Duration MAX_REPLAY_AGE = Duration.ofDays(1);
+    private static final int MIN_LINES_BEFORE_COMPACTION = 1000;
+    private static final String OVERRIDE_KEY_PREFIX = "override:";
+    private static final String STATE_KEY_PREFIX = "state:";
+
+    private final Path file;
+    private final Supplier<ZonedDateTime> currentTime;
+    private final ObjectMapper mapper;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private final List<Entry> unwrittenEntries = new ArrayList<>();
+    private final ExecutorService writerExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("state-journal").factory());
+    private ManualOverrideTracker tracker;
+    private BufferedWriter writer; // only used by the writer thread, after construction
+    private volatile int lines;
+
+    public StateJournal(Path file, Supplier<ZonedDateTime> currentTime) {
+        this.file = file;
+        this.currentTime = currentTime;
+        mapper = new ObjectMapper();
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
+        load();
+        compact(entries.values());
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                readEntry(line);
+            }
+            log.debug("Loaded {} entries from state journal {}", entries.size(), file);
+        } catch (IOException e) {
+            log.warn("Failed to read state journal {}: {}", file, e.getLocalizedMessage());
+        }
+    }
+
+    private void readEntry(String line) {
+        if (line.isBlank()) {
+            return;
+        }
+        try {
+            Entry entry = mapper.readValue(line, Entry.class);
+            entries.put(entry.key(), entry);
+        } catch (JsonProcessingException e) {
+            log.warn("Skip invalid state journal entry '{}': {}", line, e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * @return a tracker that records every change of the given tracker in this journal. The given tracker is also the
+     * one restored by {@link #replay(Collection)}.
+     */
+    public ManualOverrideTracker track(ManualOverrideTracker tracker) {
+        this.tracker = tracker;
+        return new JournalingManualOverrideTracker(tracker);
+    }
+
+    /**
+     * Records the last seen time and put calls of the given state, if it has been seen already.
+     */
+    public void recordLastSeen(ScheduledState state) {
+        ZonedDateTime lastSeen = state.getLastSeen();
+        PutCalls lastPutCalls = state.getLastPutCalls();
+        if (lastSeen == null || lastPutCalls == null) {
+            return;
+        }
+        append(new Entry(STATE_KEY_PREFIX + state.getJournalKey(), lastSeen.toString(), null, null,
+                JournaledPutCalls.of(lastPutCalls)));
+    }
+
+    /**
+     * Appends the current flags of the given light or group, if they differ from the last recorded ones. A light or
+     * group without entry has neither flag set. Needs to be called while holding the monitor of this journal, together
+     * with the change of the flags, so that the flags of concurrent changes are recorded in the order they were made.
+     */
+    private void recordOverrideState(String id, ManualOverrideTracker tracker) {
+        String key = OVERRIDE_KEY_PREFIX + id;
+        boolean manuallyOverridden = tracker.isManuallyOverridden(id);
+        boolean turnedOnBySyncedScene = tracker.wasTurnedOnBySyncedScene(id);
+        Entry previous = entries.get(key);
+        boolean previouslyManuallyOverridden = previous != null && previous.manuallyOverridden() == Boolean.TRUE;
+        boolean previouslyTurnedOnBySyncedScene = previous != null && previous.turnedOnBySyncedScene() == Boolean.TRUE;
+        if (manuallyOverridden == previouslyManuallyOverridden
+            && turnedOnBySyncedScene == previouslyTurnedOnBySyncedScene) {
+            return;
+        }
+        append(new Entry(key, currentTime.get().toString(), manuallyOverridden, turnedOnBySyncedScene, null));
+    }
+
+    /**
+     * Restores the journaled facts that are not older than {@link #MAX_REPLAY_AGE}: the manual override flags into
+     * the tracked tracker, and the last seen time and put calls into the matching states.
+     */
+    public synchronized void replay(Collection<ScheduledState> states) {
+        ZonedDateTime oldestReplayed = currentTime.get().minus(MAX_REPLAY_AGE);
+        Map<String, List<ScheduledState>> statesByKey = new LinkedHashMap<>();
+        states.forEach(state -> statesByKey.computeIfAbsent(state.getJournalKey(), _ -> new ArrayList<>()).add(state));
+        int replayed = 0;
+        for (Entry entry : entries.values()) {
+            if (ZonedDateTime.parse(entry.recordedAt()).isBefore(oldestReplayed)) {
+                continue;
+            }
+            if (entry.key().startsWith(OVERRIDE_KEY_PREFIX)) {
+                if (tracker == null) {
+                    continue;
+                }
+                String id = entry.key().substring(OVERRIDE_KEY_PREFIX.length());
+                if (entry.manuallyOverridden() == Boolean.TRUE) {
+                    tracker.onManuallyOverridden(id);
+                }
+                if (entry.turnedOnBySyncedScene() == Boolean.TRUE) {
+                    tracker.onLightTurnedOnBySyncedScene(id);
+                }
+                replayed++;
+            } else {
+                List<ScheduledState> matchingStates = statesByKey.getOrDefault(
+                        entry.key().substring(STATE_KEY_PREFIX.length()), List.of());
+                for (ScheduledState state : matchingStates) {
+                    state.setLastPutCalls(entry.putCalls().toPutCalls());
+                    state.setLastSeen(ZonedDateTime.parse(entry.recordedAt()));
+                    replayed++;
+                }
+            }
+        }
+        log.info("Replayed {} facts from state journal {}", replayed, file);
+    }
+
+    private synchronized void append(Entry entry) {
+        entries.put(entry.key(), entry);
+        unwrittenEntries.add(entry);
+        if (unwrittenEntries.size() == 1) {
+            writerExecutor.execute(this::writeUnwrittenEntries);
+        }
+    }
+
+    /**
+     * Runs on the writer thread. Appends all entries recorded since the last run, and compacts the journal once it
+     * grew too large.
+     */
+    private void writeUnwrittenEntries() {
+        List<Entry> written;
+        List<Entry> liveEntries = null;
+        synchronized (this) {
+            written = new ArrayList<>(unwrittenEntries);
+            unwrittenEntries.clear();
+            if (lines + written.size() > Math.max(MIN_LINES_BEFORE_COMPACTION, entries.size() * 4)) {
+                liveEntries = new ArrayList<>(entries.values());
+            }
+        }
+        if (liveEntries != null) {
+            compact(liveEntries);
+            return;
+        }
+        try {
+            ensureWriterOpen();
+            for (Entry entry : written) {
+                writeEntry(writer, entry);
+            }
+            writer.flush();
+            lines += written.size();
+        } catch (IOException e) {
+            log.warn("Failed to write state journal {}: {}", file, e.getLocalizedMessage());
+            closeWriter();
+        }
+    }
+
+    /**
+     * Rewrites the journal with only the given latest entries per key. The new file replaces the old one atomically, so
+     * that a crash during compaction leaves the old journal intact.
+     */
+    private void compact(Collection<Entry> liveEntries) {
+        closeWriter();
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter compacted = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                for (Entry entry : liveEntries) {
+                    writeEntry(compacted, entry);
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lines = liveEntries.size();
+        } catch (IOException e) {
+            log.warn("Failed to compact state journal {}: {}", file, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Waits until all entries recorded so far have been written.
+     */
+    void flush() {
+        CompletableFuture.runAsync(() -> {
+        }, writerExecutor).join();
+    }
+
+    private void ensureWriterOpen() throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        }
+    }
+
+    private void writeEntry(BufferedWriter writer, Entry entry) throws IOException {
+        writer.write(mapper.writeValueAsString(entry));
+        writer.newLine();
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException ignore) {
+        }
+        writer = null;
+    }
+
+    /**
+     * @return the number of lines currently in the journal file, not including entries that are not written yet
+     */
+    int getLineCount() {
+        return lines;
+    }
+
+    record Entry(String key, String recordedAt, Boolean manuallyOverridden, Boolean turnedOnBySyncedScene,
+                 JournaledPutCalls putCalls) {
+    }
+
+    record JournaledPutCalls(String id, boolean groupUpdate, Integer transitionTime, List<JournaledPutCall> calls) {
+
+        static JournaledPutCalls of(PutCalls putCalls) {
+            List<JournaledPutCall> calls = new ArrayList<>();
+            putCalls.forEachWithoutTransitionTime(putCall -> calls.add(JournaledPutCall.of(putCall)));
+            return new JournaledPutCalls(putCalls.getId(), putCalls.isGroupUpdate(), putCalls.getTransitionTime(), calls);
+        }
+
+        PutCalls toPutCalls() {
+            return new PutCalls(id, calls.stream().map(JournaledPutCall::toPutCall).toList(), transitionTime, groupUpdate);
+        }
+    }
+
+    record JournaledPutCall(String id, Integer bri, Integer ct, Double x, Double y, Boolean on, Effect effect,
+                            Gradient gradient, Integer transitionTime, Double[][] gamut) {
+
+        static JournaledPutCall of(PutCall putCall) {
+            return new JournaledPutCall(putCall.getId(), putCall.getBri(), putCall.getCt(), putCall.getX(),
+                    putCall.getY(), putCall.getOn(), putCall.getEffect(), putCall.getGradient(),
+                    putCall.getTransitionTime(), putCall.getGamut());
+        }
+
+        PutCall toPutCall() {
+            return PutCall.builder()
+                          .id(id)
+                          .bri(bri)
+                          .ct(ct)
+                          .x(x)
+                          .y(y)
+                          .on(on)
+                          .effect(effect)
+                          .gradient(gradient)
+                          .transitionTime(transitionTime)
+                          .gamut(gamut)
+                          .build();
+        }
+    }
+
+    /**
+     * Records the resulting flags of the light or group after every change that modified them.
+     */
+    private final class JournalingManualOverrideTracker implements ManualOverrideTracker {
+
+        private final ManualOverrideTracker delegate;
+
+        private JournalingManualOverrideTracker(ManualOverrideTracker delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onManuallyOverridden(String id) {
+            synchronized (StateJournal.this) {
+                delegate.onManuallyOverridden(id);
+                recordOverrideState(id, delegate);
+            }
+        }
+
+        @Override
+        public boolean isManuallyOverridden(String id) {
+            return delegate.isManuallyOverridden(id);
+        }
+
+        @Override
+        public void onLightTurnedOn(String id) {
+            synchronized (StateJournal.this) {
+                delegate.onLightTurnedOn(id);
+                recordOverrideState(id, delegate);
+            }
+        }
+
+        @Override
+        public void onLightTurnedOnBySyncedScene(String id) {
+            synchronized (StateJournal.this) {
+                delegate.onLightTurnedOnBySyncedScene(id);
+                recordOverrideState(id, delegate);
+            }
+        }
+
+        @Override
+        public void onLightOff(String id) {
+            synchronized (StateJournal.this) {
+                delegate.onLightOff(id);
+                recordOverrideState(id, delegate);
+            }
+        }
+
+        @Override
+        public boolean wasTurnedOnBySyncedScene(String id) {
+            return delegate.wasTurnedOnBySyncedScene(id);
+        }
+    }
+}
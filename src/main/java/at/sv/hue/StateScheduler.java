@@ -6,5 +6,22 @@ import java.util.concurrent.TimeUnit;
 public interface StateScheduler {
     void schedule(Runnable runnable, ZonedDateTime start, ZonedDateTime end);
 
+    /**
+     * Like {@link #schedule(Runnable, ZonedDateTime, ZonedDateTime)}, but a still pending task scheduled with an equal
+     * key is replaced. By default, pending tasks are not tracked and the task is just scheduled.
+     * <p>
+     * If the key is a {@link LaneKey}, the task is not run at the same time as other tasks of the same lane.
+     */
+    default void schedule(Object key, Runnable runnable, ZonedDateTime start, ZonedDateTime end) {
+        schedule(runnable, start, end);
+    }
+
     void scheduleAtFixedRate(Runnable runnable, long initialDelay, long period, TimeUnit unit);
+
+    /**
+     * Task key that serializes the execution of all tasks sharing the same lane, e.g., all tasks of one light.
+     */
+    interface LaneKey {
+        Object getLane();
+    }
 }
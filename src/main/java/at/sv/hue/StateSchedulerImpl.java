@@ -16,11 +16,13 @@ public final class StateSchedulerImpl implements StateScheduler {
     private final ScheduledExecutorService scheduler;
     private final Supplier<ZonedDateTime> currentTime;
     private final ExecutorService executor;
+    private final ExecutionLanes lanes;
 
     public StateSchedulerImpl(ScheduledExecutorService scheduler, Supplier<ZonedDateTime> currentTime) {
         this.scheduler = scheduler;
         this.currentTime = currentTime;
         executor = Executors.newVirtualThreadPerTaskExecutor();
+        lanes = new ExecutionLanes(executor);
     }
 
     @Override
@@ -29,6 +31,16 @@ public final class StateSchedulerImpl implements StateScheduler {
                 Duration.between(currentTime.get(), start).toMillis(), TimeUnit.MILLISECONDS);
     }
 
+    @Override
+    public void schedule(Object key, Runnable runnable, ZonedDateTime start, ZonedDateTime end) {
+        if (!(key instanceof LaneKey laneKey)) {
+            schedule(runnable, start, end);
+            return;
+        }
+        scheduler.schedule(() -> lanes.submit(laneKey.getLane(), logUncaughtException(runnable)),
+                Duration.between(currentTime.get(), start).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
     @Override
     public void scheduleAtFixedRate(Runnable runnable, long initialDelay, long period, TimeUnit unit) {
         scheduler.scheduleAtFixedRate(() -> executor.submit(logUncaughtException(runnable)), initialDelay, period, unit);
@@ -0,0 +1,201 @@
+package at.sv.hue;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel, holding tasks until their expiration time. Each wheel has a fixed number of buckets,
+ * covering one tick each. Tasks too far in the future are put into an overflow wheel with coarser ticks, which is
+ * created on demand, and moved down to the finer wheels once their bucket expires.
+ * <p>
+ * Adding and cancelling a task takes constant time. Only buckets that hold tasks are tracked in a priority queue
+ * ordered by expiration, so the caller can wait until {@link #getNextExpiration()} instead of ticking. The time is
+ * passed in by the caller in milliseconds. Not thread-safe.
+ */
+final class TimingWheel {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final Bucket[] buckets;
+    private final PriorityQueue<Bucket> queue;
+    private long currentTime;
+    private TimingWheel overflowWheel;
+    private int size;
+
+    TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this(tickMs, wheelSize, startMs, new PriorityQueue<>(Comparator.comparingLong(Bucket::getExpiration)));
+    }
+
+    private TimingWheel(long tickMs, int wheelSize, long startMs, PriorityQueue<Bucket> queue) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.queue = queue;
+        currentTime = startMs - (startMs % tickMs);
+        buckets = new Bucket[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * @return the added entry, or null if the task is already expired and has to be run right away
+     */
+    Entry add(long expirationMs, Runnable task) {
+        Entry entry = new Entry(expirationMs, task);
+        if (!addEntry(entry)) {
+            return null;
+        }
+        size++;
+        return entry;
+    }
+
+    /**
+     * @return true if the entry was still pending and has been removed
+     */
+    boolean cancel(Entry entry) {
+        if (entry.bucket == null) {
+            return false;
+        }
+        entry.bucket.remove(entry);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the time forward and passes all tasks expired until then to the given consumer, in the order of their
+     * buckets.
+     */
+    void advanceTo(long nowMs, Consumer<Runnable> expiredTasks) {
+        while (!queue.isEmpty() && queue.peek().getExpiration() <= nowMs) {
+            Bucket bucket = queue.poll();
+            advanceClock(bucket.getExpiration());
+            bucket.flush(entry -> {
+                if (!addEntry(entry)) {
+                    size--;
+                    expiredTasks.accept(entry.task);
+                }
+            });
+        }
+        advanceClock(nowMs);
+    }
+
+    /**
+     * @return the time of the next bucket to expire, or {@link Long#MAX_VALUE} if there are no pending tasks
+     */
+    long getNextExpiration() {
+        Bucket next = queue.peek();
+        if (next == null) {
+            return Long.MAX_VALUE;
+        }
+        return next.getExpiration();
+    }
+
+    /**
+     * @return the number of pending tasks
+     */
+    int size() {
+        return size;
+    }
+
+    private boolean addEntry(Entry entry) {
+        long expiration = entry.expirationMs;
+        if (expiration < currentTime + tickMs) {
+            return false;
+        }
+        if (expiration < currentTime + interval) {
+            long virtualId = expiration / tickMs;
+            Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+            bucket.add(entry);
+            if (bucket.setExpiration(virtualId * tickMs)) {
+                queue.add(bucket);
+            }
+            return true;
+        }
+        return getOverflowWheel().addEntry(entry);
+    }
+
+    private TimingWheel getOverflowWheel() {
+        if (overflowWheel == null) {
+            overflowWheel = new TimingWheel(interval, wheelSize, currentTime, queue);
+        }
+        return overflowWheel;
+    }
+
+    private void advanceClock(long timeMs) {
+        if (timeMs >= currentTime + tickMs) {
+            currentTime = timeMs - (timeMs % tickMs);
+            if (overflowWheel != null) {
+                overflowWheel.advanceClock(currentTime);
+            }
+        }
+    }
+
+    static final class Entry {
+        private final long expirationMs;
+        private final Runnable task;
+        private Bucket bucket;
+        private Entry previous;
+        private Entry next;
+
+        private Entry(long expirationMs, Runnable task) {
+            this.expirationMs = expirationMs;
+            this.task = task;
+        }
+    }
+
+    /**
+     * Doubly linked list of the entries expiring within one tick.
+     */
+    private static final class Bucket {
+        private final Entry root = new Entry(-1, null);
+        private long expiration = -1;
+
+        private Bucket() {
+            root.previous = root;
+            root.next = root;
+        }
+
+        long getExpiration() {
+            return expiration;
+        }
+
+        /**
+         * @return true if the expiration changed, i.e., the bucket has to be enqueued
+         */
+        boolean setExpiration(long expiration) {
+            boolean changed = this.expiration != expiration;
+            this.expiration = expiration;
+            return changed;
+        }
+
+        void add(Entry entry) {
+            Entry tail = root.previous;
+            entry.next = root;
+            entry.previous = tail;
+            entry.bucket = this;
+            tail.next = entry;
+            root.previous = entry;
+        }
+
+        void remove(Entry entry) {
+            entry.next.previous = entry.previous;
+            entry.previous.next = entry.next;
+            entry.next = null;
+            entry.previous = null;
+            entry.bucket = null;
+        }
+
+        void flush(Consumer<Entry> consumer) {
+            Entry head = root.next;
+            while (head != root) {
+                remove(head);
+                consumer.accept(head);
+                head = root.next;
+            }
+            expiration = -1;
+        }
+    }
+}
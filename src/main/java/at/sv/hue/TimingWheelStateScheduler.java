@@ -0,0 +1,198 @@
+package at.sv.hue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * {@link StateScheduler} backed by a {@link TimingWheel}, instead of the heap of a scheduled executor.
+ * <p>
+ * Tasks scheduled with a key replace the pending task with an equal key, which is then dropped as superseded. A single
+ * worker thread sleeps until the next bucket expires and runs the expired tasks on virtual threads, serialized per
+ * {@link LaneKey lane}.
+ */
+@Slf4j
+public final class TimingWheelStateScheduler implements StateScheduler {
+
+    private static final long TICK_MS = 10;
+    private static final int WHEEL_SIZE = 64;
+
+    private final Supplier<ZonedDateTime> currentTime;
+    private final LongSupplier clock;
+    private final ExecutorService executor;
+    private final ExecutionLanes lanes;
+    private final Object lock = new Object();
+    private final TimingWheel wheel;
+    private final Map<Object, TimingWheel.Entry> pendingTasks = new HashMap<>();
+    private long supersededTasks;
+
+    public TimingWheelStateScheduler(Supplier<ZonedDateTime> currentTime) {
+        this(currentTime, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+        Thread.ofPlatform()
+              .daemon()
+              .name("state-scheduler")
+              .start(this::runWorker);
+    }
+
+    /**
+     * Without worker thread, expired tasks are only run by {@link #runExpiredTasks()}.
+     */
+    TimingWheelStateScheduler(Supplier<ZonedDateTime> currentTime, LongSupplier clock) {
+        this.currentTime = currentTime;
+        this.clock = clock;
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        lanes = new ExecutionLanes(executor);
+        wheel = new TimingWheel(TICK_MS, WHEEL_SIZE, clock.getAsLong());
+    }
+
+    @Override
+    public void schedule(Runnable runnable, ZonedDateTime start, ZonedDateTime end) {
+        schedule(null, runnable, start, end);
+    }
+
+    @Override
+    public void schedule(Object key, Runnable runnable, ZonedDateTime start, ZonedDateTime end) {
+        long delayInMs = Math.max(0, Duration.between(currentTime.get(), start).toMillis());
+        scheduleAt(key, logUncaughtException(runnable), clock.getAsLong() + delayInMs);
+    }
+
+    @Override
+    public void scheduleAtFixedRate(Runnable runnable, long initialDelay, long period, TimeUnit unit) {
+        long periodInMs = unit.toMillis(period);
+        Runnable task = logUncaughtException(runnable);
+        scheduleAtFixedRate(task, clock.getAsLong() + unit.toMillis(initialDelay), periodInMs);
+    }
+
+    private void scheduleAtFixedRate(Runnable task, long expirationMs, long periodInMs) {
+        scheduleAt(null, () -> {
+            scheduleAtFixedRate(task, expirationMs + periodInMs, periodInMs);
+            task.run();
+        }, expirationMs);
+    }
+
+    private void scheduleAt(Object key, Runnable task, long expirationMs) {
+        synchronized (lock) {
+            if (key == null) {
+                add(task, expirationMs);
+            } else {
+                dropSupersededTask(key);
+                KeyedTask keyedTask = new KeyedTask(key, task);
+                keyedTask.entry = add(keyedTask, expirationMs);
+                if (keyedTask.entry != null) {
+                    pendingTasks.put(key, keyedTask.entry);
+                }
+            }
+        }
+    }
+
+    private TimingWheel.Entry add(Runnable task, long expirationMs) {
+        TimingWheel.Entry entry = wheel.add(expirationMs, task);
+        if (entry == null) {
+            submit(task);
+        } else {
+            lock.notifyAll();
+        }
+        return entry;
+    }
+
+    private void dropSupersededTask(Object key) {
+        TimingWheel.Entry previous = pendingTasks.remove(key);
+        if (previous != null && wheel.cancel(previous)) {
+            supersededTasks++;
+            log.trace("Dropped superseded task for {}", key);
+        }
+    }
+
+    /**
+     * @return the number of pending tasks
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * @return the number of pending tasks that have been dropped, because a task with the same key was scheduled
+     */
+    public long getSupersededTaskCount() {
+        synchronized (lock) {
+            return supersededTasks;
+        }
+    }
+
+    private void runWorker() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                synchronized (lock) {
+                    long waitTimeInMs = wheel.getNextExpiration() - clock.getAsLong();
+                    if (waitTimeInMs > 0) {
+                        lock.wait(wheel.getNextExpiration() == Long.MAX_VALUE ? 0 : waitTimeInMs);
+                        continue;
+                    }
+                }
+                runExpiredTasks();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void runExpiredTasks() {
+        List<Runnable> expiredTasks = new ArrayList<>();
+        synchronized (lock) {
+            wheel.advanceTo(clock.getAsLong(), expiredTasks::add);
+        }
+        expiredTasks.forEach(this::submit);
+    }
+
+    private void submit(Runnable task) {
+        if (task instanceof KeyedTask keyedTask && keyedTask.key instanceof LaneKey laneKey) {
+            lanes.submit(laneKey.getLane(), task);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    /**
+     * Removes itself from the pending tasks once it is run.
+     */
+    private final class KeyedTask implements Runnable {
+        private final Object key;
+        private final Runnable task;
+        private TimingWheel.Entry entry;
+
+        private KeyedTask(Object key, Runnable task) {
+            this.key = key;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            synchronized (lock) {
+                pendingTasks.remove(key, entry);
+            }
+            task.run();
+        }
+    }
+
+    private Runnable logUncaughtException(Runnable runnable) {
+        return () -> {
+            try {
+                runnable.run();
+            } catch (Exception e) {
+                log.error("Uncaught exception: {}", e.getLocalizedMessage(), e);
+            }
+        };
+    }
+}
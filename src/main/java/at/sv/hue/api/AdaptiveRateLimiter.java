@@ -0,0 +1,135 @@
+package at.sv.hue.api;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * {@link RateLimiter} that adapts its rate to the feedback of the bridge, using additive increase and multiplicative
+ * decrease (AIMD). Rate limit (429) and server errors (5xx), as well as connection failures, halve the rate. If the
+ * average latency of write requests rises well above the lowest observed latency, the rate is reduced slightly.
+ * Otherwise, each successful write request probes upward, which adds about one request per second for each second at
+ * the current rate.
+ * <p>
+ * Decreases are only applied once per {@link #DECREASE_COOLDOWN}, so that a burst of failed requests sent at the old
+ * rate does not collapse the rate at once.
+ */
+@Slf4j
+public final class AdaptiveRateLimiter implements RateLimiter, ResponseListener {
+
+    static final Duration DECREASE_COOLDOWN = Duration.ofSeconds(1);
+    private static final double OVERLOAD_DECREASE_FACTOR = 0.5;
+    private static final double LATENCY_DECREASE_FACTOR = 0.9;
+    private static final double LATENCY_TOLERANCE_FACTOR = 2.0;
+    private static final double LATENCY_SMOOTHING = 0.2;
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final RateLimiterImpl limiter;
+    private final double minRate;
+    private final double maxRate;
+    private final Supplier<Long> nanoTime;
+    private final Object lock = new Object();
+    private double rate;
+    private double averageLatencyNanos = -1;
+    private double baselineLatencyNanos = -1;
+    private long lastDecreaseNanos;
+
+    /**
+     * @param initialRate the rate to start with, in permits per second
+     * @param minRate     the rate is never reduced below this value
+     * @param maxRate     the rate is never increased above this value
+     */
+    public AdaptiveRateLimiter(double initialRate, double minRate, double maxRate) {
+        this(initialRate, minRate, maxRate, System::nanoTime, RateLimiter::sleep);
+    }
+
+    AdaptiveRateLimiter(double initialRate, double minRate, double maxRate, Supplier<Long> nanoTime,
+                        Consumer<Long> sleep) {
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.nanoTime = nanoTime;
+        rate = initialRate;
+        limiter = new RateLimiterImpl(initialRate, 1, nanoTime, sleep);
+        lastDecreaseNanos = nanoTime.get() - DECREASE_COOLDOWN.toNanos();
+    }
+
+    @Override
+    public void acquire(int permits) {
+        limiter.acquire(permits);
+    }
+
+    /**
+     * @return the current rate in permits per second
+     */
+    public double getCurrentRate() {
+        synchronized (lock) {
+            return rate;
+        }
+    }
+
+    @Override
+    public void onResponse(String method, int code, long latencyNanos) {
+        if (code == 429 || code >= 500) {
+            decrease(OVERLOAD_DECREASE_FACTOR, "status code " + code);
+            return;
+        }
+        if ("GET".equals(method)) {
+            return; // the latency of reading resources depends on their size, not on the load of the bridge
+        }
+        synchronized (lock) {
+            updateLatencies(latencyNanos);
+            if (averageLatencyNanos > baselineLatencyNanos * LATENCY_TOLERANCE_FACTOR) {
+                decrease(LATENCY_DECREASE_FACTOR, "rising latency");
+            } else {
+                setRate(Math.min(maxRate, rate + 1 / rate));
+            }
+        }
+    }
+
+    @Override
+    public void onConnectionFailure() {
+        decrease(OVERLOAD_DECREASE_FACTOR, "connection failure");
+    }
+
+    private void updateLatencies(long latencyNanos) {
+        if (averageLatencyNanos < 0) {
+            averageLatencyNanos = latencyNanos;
+            baselineLatencyNanos = latencyNanos;
+            return;
+        }
+        averageLatencyNanos += (latencyNanos - averageLatencyNanos) * LATENCY_SMOOTHING;
+        if (latencyNanos < baselineLatencyNanos) {
+            baselineLatencyNanos = latencyNanos;
+        } else {
+            baselineLatencyNanos += (latencyNanos - baselineLatencyNanos) * BASELINE_DRIFT;
+        }
+    }
+
+    private void decrease(double factor, String reason) {
+        synchronized (lock) {
+            long now = nanoTime.get();
+            if (now - lastDecreaseNanos < DECREASE_COOLDOWN.toNanos()) {
+                return;
+            }
+            lastDecreaseNanos = now;
+            double previousRate = rate;
+            setRate(Math.max(minRate, rate * factor));
+            log.debug("Reduced request rate from {} to {} per second due to {}", format(previousRate), format(rate),
+                    reason);
+        }
+    }
+
+    private void setRate(double newRate) {
+        if (newRate == rate) {
+            return;
+        }
+        rate = newRate;
+        limiter.setRate(newRate);
+    }
+
+    private static String format(double rate) {
+        return String.format("%.1f", rate);
+    }
+}
@@ -0,0 +1,73 @@
+package at.sv.hue.api;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Helpers for running api calls asynchronously, without losing the logging context and {@link RequestPriority} of the
+ * thread that issued them.
+ */
+public final class AsyncCalls {
+
+    private AsyncCalls() {
+    }
+
+    /**
+     * @return an executor that runs its tasks with the logging context and request priority of the current thread, as
+     * captured when calling this method
+     */
+    public static Executor withCurrentContext(Executor executor) {
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        RequestPriority priority = RequestPriority.current();
+        return task -> executor.execute(() -> {
+            if (context != null) {
+                MDC.setContextMap(context);
+            }
+            priority.run(task);
+        });
+    }
+
+    /**
+     * Waits for all given futures to complete.
+     *
+     * @throws RuntimeException the failure of the first failed future, in the order given
+     */
+    public static void joinAll(Iterable<CompletableFuture<Void>> futures) {
+        RuntimeException failure = null;
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                join(future);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits for the given future to complete.
+     *
+     * @throws RuntimeException the failure of the future, unwrapped
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package at.sv.hue.api;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares the permits of the parent limiter between the {@link ResourceClass resource classes} by weighted fair queuing,
+ * so that e.g. a burst of scene updates cannot queue up in front of individual light updates. While several classes
+ * are waiting, each gets permits in proportion to its {@link ResourceClass#getShare() share}. A class waiting alone
+ * gets the full rate of the parent, i.e., capacity left idle by the other classes is never wasted.
+ * <p>
+ * Only one request at a time waits for the parent limiter. The next one is taken from the class whose head request
+ * would finish first on the virtual clock of the fair queue, measured in permits divided by the share of the class.
+ * Within each class, waiting requests are served by their {@link RequestPriority}. Requests without a class only use
+ * the parent limiter.
+ */
+public final class HierarchicalRateLimiter implements RateLimiter {
+
+    private final RateLimiter parent;
+    private final Map<ResourceClass, Double> shares;
+    private final Map<ResourceClass, PriorityQueue<Waiter>> waitersByClass = new EnumMap<>(ResourceClass.class);
+    private final Map<ResourceClass, Double> lastFinishTags = new EnumMap<>(ResourceClass.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queueChanged = lock.newCondition();
+    private double virtualTime;
+    private boolean parentBusy;
+    private long sequence;
+
+    /**
+     * @param parent the limiter shared by all resource classes
+     */
+    public HierarchicalRateLimiter(RateLimiter parent) {
+        this(parent, getDefaultShares());
+    }
+
+    HierarchicalRateLimiter(RateLimiter parent, Map<ResourceClass, Double> shares) {
+        this.parent = parent;
+        this.shares = new EnumMap<>(shares);
+        for (ResourceClass resourceClass : shares.keySet()) {
+            waitersByClass.put(resourceClass, new PriorityQueue<>(
+                    Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence)));
+            lastFinishTags.put(resourceClass, 0.0);
+        }
+    }
+
+    private static Map<ResourceClass, Double> getDefaultShares() {
+        Map<ResourceClass, Double> shares = new EnumMap<>(ResourceClass.class);
+        for (ResourceClass resourceClass : ResourceClass.values()) {
+            shares.put(resourceClass, resourceClass.getShare());
+        }
+        return shares;
+    }
+
+    @Override
+    public void acquire(int permits) {
+        parent.acquire(permits);
+    }
+
+    /**
+     * @throws BridgeConnectionFailure if interrupted while waiting for the turn of this request; the request is then
+     *                                 removed from the queue, and the interrupt status is restored
+     */
+    @Override
+    public void acquire(int permits, ResourceClass resourceClass) {
+        awaitTurn(resourceClass, permits);
+        try {
+            parent.acquire(permits);
+        } finally {
+            lock.lock();
+            try {
+                parentBusy = false;
+                queueChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void awaitTurn(ResourceClass resourceClass, int permits) {
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(resourceClass, permits, RequestPriority.current(), sequence++);
+            PriorityQueue<Waiter> classWaiters = waitersByClass.get(resourceClass);
+            classWaiters.add(waiter);
+            try {
+                while (parentBusy || selectNext() != waiter) {
+                    queueChanged.await();
+                }
+            } catch (InterruptedException e) {
+                classWaiters.remove(waiter);
+                queueChanged.signalAll();
+                Thread.currentThread().interrupt();
+                throw new BridgeConnectionFailure("Interrupted while waiting for permit", e);
+            }
+            classWaiters.remove(waiter);
+            double startTag = getStartTag(resourceClass);
+            lastFinishTags.put(resourceClass, getFinishTag(waiter, startTag));
+            virtualTime = startTag;
+            parentBusy = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests waiting for their turn, not including the one waiting for the parent limiter
+     */
+    int getWaitingCount() {
+        lock.lock();
+        try {
+            return waitersByClass.values().stream().mapToInt(PriorityQueue::size).sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the head request of the class with the lowest finish tag, or null if no request is waiting
+     */
+    private Waiter selectNext() {
+        Waiter next = null;
+        double nextFinishTag = Double.MAX_VALUE;
+        for (PriorityQueue<Waiter> classWaiters : waitersByClass.values()) {
+            Waiter head = classWaiters.peek();
+            if (head == null) {
+                continue;
+            }
+            double finishTag = getFinishTag(head, getStartTag(head.resourceClass()));
+            if (finishTag < nextFinishTag) {
+                next = head;
+                nextFinishTag = finishTag;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * A class that has been idle starts at the current virtual time, so that it can't save up permits for a burst.
+     */
+    private double getStartTag(ResourceClass resourceClass) {
+        return Math.max(virtualTime, lastFinishTags.get(resourceClass));
+    }
+
+    private double getFinishTag(Waiter waiter, double startTag) {
+        return startTag + waiter.permits() / shares.get(waiter.resourceClass());
+    }
+
+    private record Waiter(ResourceClass resourceClass, int permits, RequestPriority priority, long sequence) {
+    }
+}
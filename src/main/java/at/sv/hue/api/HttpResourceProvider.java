@@ -1,6 +1,10 @@
 package at.sv.hue.api;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 public interface HttpResourceProvider {
     /**
@@ -12,6 +16,25 @@ public interface HttpResourceProvider {
      */
     String getResource(URL url);
 
+    /**
+     * Passes the body of the requested resource to the given reader while it is still being received, instead of
+     * materializing it as a string first. The body is closed once the reader returns.
+     *
+     * @return the result of the reader
+     * @throws BridgeAuthenticationFailure if the server rejected the response as unauthorized (401, 403)
+     * @throws BridgeConnectionFailure     if an IOException occurred, including while reading the body
+     * @throws ResourceNotFoundException   if the response code is 404
+     * @throws ApiFailure                  if the response code is 5xx or 429
+     */
+    default <T> T getResource(URL url, BodyReader<T> reader) {
+        String body = getResource(url);
+        try (InputStream stream = new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))) {
+            return reader.read(stream);
+        } catch (IOException e) {
+            throw new BridgeConnectionFailure("Failed to read '" + url + "'", e);
+        }
+    }
+
     /**
      * @param body the json payload of the put request
      * @return the response of the server. Not null.
@@ -31,4 +54,13 @@ public interface HttpResourceProvider {
      * @throws ApiFailure                  if the response code is 5xx or 429
      */
     String postResource(URL url, String body);
+
+    @FunctionalInterface
+    interface BodyReader<T> {
+        /**
+         * @throws IOException if reading the body failed. Parsing failures should rather be reported as
+         *                     {@link ApiFailure}.
+         */
+        T read(InputStream body) throws IOException;
+    }
 }
@@ -9,7 +9,7 @@ import okhttp3.Response;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.concurrent.Semaphore;
+import java.util.Map;
 
 @Slf4j
 public class HttpResourceProviderImpl implements HttpResourceProvider {
@@ -17,11 +17,24 @@ public class HttpResourceProviderImpl implements HttpResourceProvider {
     public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
     private final OkHttpClient httpClient;
-    private final Semaphore semaphore;
+    private final PrioritySemaphore semaphore;
+    private final ResponseListener responseListener;
 
     public HttpResourceProviderImpl(OkHttpClient httpClient, int maxConcurrentRequests) {
+        this(httpClient, maxConcurrentRequests, null);
+    }
+
+    public HttpResourceProviderImpl(OkHttpClient httpClient, int maxConcurrentRequests, ResponseListener responseListener) {
         this.httpClient = httpClient;
-        this.semaphore = new Semaphore(maxConcurrentRequests);
+        this.semaphore = new PrioritySemaphore(maxConcurrentRequests);
+        this.responseListener = responseListener;
+    }
+
+    /**
+     * @return how long requests waited for one of the concurrent request permits, per {@link RequestPriority}
+     */
+    public Map<RequestPriority, QueueWaitTime> getQueueWaitTimes() {
+        return semaphore.getWaitTimes();
     }
 
     @Override
@@ -30,6 +43,12 @@ public class HttpResourceProviderImpl implements HttpResourceProvider {
         return performCall(getRequest(url));
     }
 
+    @Override
+    public <T> T getResource(URL url, BodyReader<T> reader) {
+        log.trace("Get: {}", url);
+        return performCall(getRequest(url), response -> reader.read(response.body().byteStream()));
+    }
+
     @Override
     public String putResource(URL url, String body) {
         log.trace("Put: {}: {}", url, getTruncatedBody(body));
@@ -69,16 +88,30 @@ public class HttpResourceProviderImpl implements HttpResourceProvider {
     }
 
     private String performCall(Request request) {
+        return performCall(request, HttpResourceProviderImpl::getBody);
+    }
+
+    /**
+     * The body is read while the connection permit is still held, as it is streamed from the open connection.
+     */
+    private <T> T performCall(Request request, ResponseHandler<T> handler) {
         try {
             semaphore.acquire();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new BridgeConnectionFailure("Interrupted while waiting for permit", e);
         }
+        long start = System.nanoTime();
+        boolean responded = false;
         try (Response response = callHttpClient(request)) {
+            responded = true;
+            notifyResponse(request, response, System.nanoTime() - start);
             assertSuccessful(response);
-            return getBody(response);
+            return handler.handle(response);
         } catch (IOException e) {
+            if (!responded) {
+                notifyConnectionFailure();
+            }
             log.error("Failed '{}': {}", request, e.getLocalizedMessage());
             throw new BridgeConnectionFailure("Failed '" + request + "'", e);
         } finally {
@@ -86,6 +119,18 @@ public class HttpResourceProviderImpl implements HttpResourceProvider {
         }
     }
 
+    private void notifyResponse(Request request, Response response, long latencyNanos) {
+        if (responseListener != null) {
+            responseListener.onResponse(request.method(), response.code(), latencyNanos);
+        }
+    }
+
+    private void notifyConnectionFailure() {
+        if (responseListener != null) {
+            responseListener.onConnectionFailure();
+        }
+    }
+
     private Response callHttpClient(Request request) throws IOException {
         return httpClient.newCall(request).execute();
     }
@@ -111,4 +156,9 @@ public class HttpResourceProviderImpl implements HttpResourceProvider {
     private static String getBody(Response response) throws IOException {
         return response.body().string();
     }
+
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
 }
@@ -0,0 +1,93 @@
+package at.sv.hue.api;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Token bucket that, unlike {@link RateLimiterImpl}, does not reserve permits in the order of arrival. Instead, callers
+ * wait in a queue, and the next free permit goes to the waiting caller with the highest {@link RequestPriority}, then
+ * to the one waiting the longest. Like {@link RateLimiterImpl}, at most one permit is stored while idle.
+ */
+final class PriorityRateLimiter implements RateLimiter {
+
+    private final Supplier<Long> nanoTime;
+    private final double stableIntervalNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition queueChanged = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+    private long nextFreeTicketNanos;
+    private long sequence;
+
+    PriorityRateLimiter(double permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    PriorityRateLimiter(double permitsPerSecond, Supplier<Long> nanoTime) {
+        this.nanoTime = nanoTime;
+        stableIntervalNanos = TimeUnit.SECONDS.toNanos(1L) / permitsPerSecond;
+        nextFreeTicketNanos = nanoTime.get();
+    }
+
+    /**
+     * @throws BridgeConnectionFailure if interrupted while waiting; the caller is then removed from the queue, and the
+     *                                 interrupt status is restored
+     */
+    @Override
+    public void acquire(int permits) {
+        lock.lock();
+        try {
+            Waiter waiter = new Waiter(RequestPriority.current(), sequence++);
+            waiters.add(waiter);
+            queueChanged.signalAll();
+            try {
+                awaitTurn(waiter);
+            } catch (InterruptedException e) {
+                waiters.remove(waiter);
+                queueChanged.signalAll();
+                Thread.currentThread().interrupt();
+                throw new BridgeConnectionFailure("Interrupted while waiting for permit", e);
+            }
+            waiters.remove(waiter);
+            long now = nanoTime.get();
+            long earliestStart = Math.max(nextFreeTicketNanos, now - (long) stableIntervalNanos);
+            nextFreeTicketNanos = earliestStart + (long) (permits * stableIntervalNanos);
+            queueChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitTurn(Waiter waiter) throws InterruptedException {
+        while (true) {
+            if (waiters.peek() != waiter) {
+                queueChanged.await();
+                continue;
+            }
+            long waitNanos = nextFreeTicketNanos - nanoTime.get();
+            if (waitNanos <= 0) {
+                return;
+            }
+            queueChanged.awaitNanos(waitNanos);
+        }
+    }
+
+    /**
+     * @return the number of callers waiting for a permit
+     */
+    int getWaitingCount() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Waiter(RequestPriority priority, long sequence) {
+    }
+}
@@ -0,0 +1,109 @@
+package at.sv.hue.api;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Semaphore that hands the next free permit to the waiting caller with the highest {@link RequestPriority}, then to
+ * the one waiting the longest, instead of to whichever thread happens to grab it first. The time spent waiting for a
+ * permit is tracked per priority.
+ */
+final class PrioritySemaphore {
+
+    private final LongSupplier nanoTime;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+    private final Map<RequestPriority, QueueWaitTime> waitTimes = new EnumMap<>(RequestPriority.class);
+    private int availablePermits;
+    private long sequence;
+
+    PrioritySemaphore(int permits) {
+        this(permits, System::nanoTime);
+    }
+
+    PrioritySemaphore(int permits, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        availablePermits = permits;
+    }
+
+    /**
+     * Blocks until a permit is available and no caller with a higher priority, or with the same priority but waiting
+     * longer, is still waiting for one.
+     *
+     * @throws InterruptedException if interrupted while waiting; the caller is then removed from the queue
+     */
+    void acquire() throws InterruptedException {
+        RequestPriority priority = RequestPriority.current();
+        lock.lock();
+        try {
+            long start = nanoTime.getAsLong();
+            Waiter waiter = new Waiter(priority, sequence++);
+            waiters.add(waiter);
+            try {
+                while (availablePermits == 0 || waiters.peek() != waiter) {
+                    permitReleased.await();
+                }
+            } catch (InterruptedException e) {
+                waiters.remove(waiter);
+                permitReleased.signalAll();
+                throw e;
+            }
+            waiters.remove(waiter);
+            availablePermits--;
+            recordWaitTime(priority, nanoTime.getAsLong() - start);
+            if (availablePermits > 0) {
+                permitReleased.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release() {
+        lock.lock();
+        try {
+            availablePermits++;
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordWaitTime(RequestPriority priority, long waitNanos) {
+        waitTimes.put(priority, waitTimes.getOrDefault(priority, QueueWaitTime.EMPTY).add(waitNanos));
+    }
+
+    /**
+     * @return the wait time statistics of each priority that acquired a permit so far
+     */
+    Map<RequestPriority, QueueWaitTime> getWaitTimes() {
+        lock.lock();
+        try {
+            return new EnumMap<>(waitTimes);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of callers waiting for a permit
+     */
+    int getWaitingCount() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Waiter(RequestPriority priority, long sequence) {
+    }
+}
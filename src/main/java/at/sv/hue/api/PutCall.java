@@ -37,7 +37,7 @@ public final class PutCall {
     public ColorMode getColorMode() {
         if (ct != null) {
             return ColorMode.CT;
-        } else if (getXY() != null) {
+        } else if (x != null && y != null) {
             return ColorMode.XY;
         } else if (gradient != null) {
             return ColorMode.GRADIENT;
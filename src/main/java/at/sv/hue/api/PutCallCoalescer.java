@@ -0,0 +1,138 @@
+package at.sv.hue.api;
+
+import at.sv.hue.ColorMode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Outbound write queue in front of the rate limiter. While a put call for an id is still waiting for its permit, further
+ * calls for the same id are merged into it instead of being sent on their own. Once the permit is available, only the
+ * merged, most recent state is sent. All merged callers share the result of this single request.
+ */
+@Slf4j
+public final class PutCallCoalescer {
+
+    private final RateLimiter rateLimiter;
+    private final Map<String, PendingCall> pendingCalls = new HashMap<>();
+    private final Map<String, PendingCall> sendingCalls = new HashMap<>();
+
+    public PutCallCoalescer(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Blocks until the given call, or a later call it has been merged with, has been sent.
+     *
+     * @param key           identifies the target of the call, e.g. the resource path
+     * @param permits       the number of rate limiter permits needed for sending
+     * @param resourceClass the rate limiter budget to charge
+     * @param sender        performs the actual request
+     * @throws ApiFailure if acquiring the permit or sending the merged call failed
+     */
+    public void put(String key, PutCall putCall, int permits, ResourceClass resourceClass, Consumer<PutCall> sender) {
+        PendingCall pending;
+        boolean merged;
+        synchronized (pendingCalls) {
+            pending = pendingCalls.get(key);
+            merged = pending != null;
+            if (merged) {
+                pending.putCall = merge(pending.putCall, putCall);
+                log.trace("Merged superseded put call for {}: {}", key, pending.putCall);
+            } else {
+                pending = new PendingCall(putCall);
+                pendingCalls.put(key, pending);
+            }
+        }
+        if (merged) {
+            AsyncCalls.join(pending.result);
+            return;
+        }
+        try {
+            rateLimiter.acquire(permits, resourceClass);
+            PutCall current;
+            synchronized (pendingCalls) {
+                pendingCalls.remove(key, pending);
+                sendingCalls.put(key, pending);
+                current = pending.putCall;
+            }
+            sender.accept(current);
+            pending.result.complete(null);
+        } catch (RuntimeException | Error e) {
+            pending.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (pendingCalls) {
+                pendingCalls.remove(key, pending); // if acquiring the permit failed
+                sendingCalls.remove(key, pending);
+            }
+        }
+    }
+
+    /**
+     * Waits until the calls for the given key that are still waiting for their permit or are being sent have been
+     * completed. Later calls are not merged into them anymore. This is needed before sending a request for the same
+     * target that bypasses this coalescer, so that it can't be overwritten by an older call. A failure of these calls
+     * is only reported to their own callers.
+     *
+     * @param key identifies the target of the call, e.g. the resource path
+     */
+    public void awaitPending(String key) {
+        PendingCall pending;
+        PendingCall sending;
+        synchronized (pendingCalls) {
+            pending = pendingCalls.remove(key);
+            sending = sendingCalls.get(key);
+        }
+        awaitQuietly(sending);
+        awaitQuietly(pending);
+    }
+
+    private static void awaitQuietly(PendingCall call) {
+        if (call != null) {
+            call.result.exceptionally(_ -> null).join();
+        }
+    }
+
+    /**
+     * The newer call wins for every property it sets. Properties only set by the older call are kept, except for the
+     * color, which is taken as a whole from the newer call if it has one, to not mix color modes. The transition time
+     * is always taken from the newer call, as it was calculated for the latest target state.
+     */
+    static PutCall merge(PutCall older, PutCall newer) {
+        PutCall.PutCallBuilder merged = older.toBuilder();
+        if (newer.getColorMode() != ColorMode.NONE) {
+            merged.ct(newer.getCt())
+                  .x(newer.getX())
+                  .y(newer.getY())
+                  .gradient(newer.getGradient());
+        }
+        if (newer.getBri() != null) {
+            merged.bri(newer.getBri());
+        }
+        if (newer.getOn() != null) {
+            merged.on(newer.getOn());
+        }
+        if (newer.getEffect() != null) {
+            merged.effect(newer.getEffect());
+        }
+        if (newer.getGamut() != null) {
+            merged.gamut(newer.getGamut());
+        }
+        return merged.id(newer.getId())
+                     .transitionTime(newer.getTransitionTime())
+                     .build();
+    }
+
+    private static final class PendingCall {
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private PutCall putCall;
+
+        private PendingCall(PutCall putCall) {
+            this.putCall = putCall;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package at.sv.hue.api;
+
+import java.time.Duration;
+
+/**
+ * Time requests spent waiting in a queue, summed up over all requests.
+ *
+ * @param count      the number of requests
+ * @param totalNanos the summed up wait time
+ * @param maxNanos   the longest wait time of a single request
+ */
+public record QueueWaitTime(long count, long totalNanos, long maxNanos) {
+
+    static final QueueWaitTime EMPTY = new QueueWaitTime(0, 0, 0);
+
+    QueueWaitTime add(long waitNanos) {
+        return new QueueWaitTime(count + 1, totalNanos + waitNanos, Math.max(maxNanos, waitNanos));
+    }
+
+    public Duration getAverage() {
+        return count == 0 ? Duration.ZERO : Duration.ofNanos(totalNanos / count);
+    }
+
+    public Duration getMax() {
+        return Duration.ofNanos(maxNanos);
+    }
+}
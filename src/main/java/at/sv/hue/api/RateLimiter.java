@@ -5,10 +5,24 @@ import java.util.concurrent.TimeUnit;
 public interface RateLimiter {
     void acquire(int permits);
 
+    /**
+     * Like {@link #acquire(int)}, but charges the budget of the given resource class, if the limiter has separate ones.
+     */
+    default void acquire(int permits, ResourceClass resourceClass) {
+        acquire(permits);
+    }
+
     static RateLimiter create(double permitsPerSecond) {
         return new RateLimiterImpl(permitsPerSecond, 1, System::nanoTime, RateLimiter::sleep);
     }
 
+    /**
+     * @return a limiter that serves waiting callers by their {@link RequestPriority} instead of their arrival
+     */
+    static RateLimiter createPrioritized(double permitsPerSecond) {
+        return new PriorityRateLimiter(permitsPerSecond);
+    }
+
     static void sleep(Long time) {
         try {
             TimeUnit.NANOSECONDS.sleep(time);
@@ -36,7 +36,7 @@ final class RateLimiterImpl implements RateLimiter {
     private final double maxStoredPermits;
     private final Supplier<Long> nanoTime;
     private final Consumer<Long> sleep;
-    private final double stableIntervalNanos;
+    private double stableIntervalNanos;
     private final Object mutex = new Object();
 
     private long nextFreeTicketNanos = 0L;
@@ -60,6 +60,16 @@ final class RateLimiterImpl implements RateLimiter {
         }
     }
 
+    /**
+     * Updates the rate for permits not yet reserved. Already waiting callers keep their reserved point in time.
+     */
+    void setRate(double permitsPerSecond) {
+        synchronized (mutex) {
+            reSync();
+            stableIntervalNanos = SECONDS.toNanos(1L) / permitsPerSecond;
+        }
+    }
+
     @Override
     public void acquire(int permits) {
         long pointInTime;
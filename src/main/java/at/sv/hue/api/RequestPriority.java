@@ -0,0 +1,42 @@
+package at.sv.hue.api;
+
+/**
+ * Priority of the requests sent by the current thread, used to decide which waiting request is sent next. Lower
+ * ordinals are served first.
+ */
+public enum RequestPriority {
+    /**
+     * Requests the user is waiting for, e.g. re-applying the state after a light has been turned on.
+     */
+    INTERACTIVE,
+    /**
+     * Requests of regularly scheduled states.
+     */
+    SCHEDULED,
+    /**
+     * Requests nobody is waiting for, e.g. background interpolations and scene syncs.
+     */
+    BACKGROUND;
+
+    private static final ThreadLocal<RequestPriority> CURRENT = ThreadLocal.withInitial(() -> SCHEDULED);
+
+    /**
+     * @return the priority of the current thread, {@link #SCHEDULED} if not set
+     */
+    public static RequestPriority current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the given runnable with this priority, restoring the previous priority afterward.
+     */
+    public void run(Runnable runnable) {
+        RequestPriority previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            runnable.run();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
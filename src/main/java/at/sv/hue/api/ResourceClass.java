@@ -0,0 +1,20 @@
+package at.sv.hue.api;
+
+import lombok.Getter;
+
+/**
+ * The class of resources a rate limited request targets, each with its own share of the overall rate in a
+ * {@link HierarchicalRateLimiter}. The share only limits a class while other classes are waiting as well.
+ */
+@Getter
+public enum ResourceClass {
+    LIGHT(0.5),
+    GROUPED_LIGHT(0.3),
+    SCENE(0.2);
+
+    private final double share;
+
+    ResourceClass(double share) {
+        this.share = share;
+    }
+}
@@ -0,0 +1,19 @@
+package at.sv.hue.api;
+
+/**
+ * Notified by {@link HttpResourceProviderImpl} about the outcome of each request, e.g. to adapt the request rate.
+ */
+public interface ResponseListener {
+
+    /**
+     * @param method       the http method of the request
+     * @param code         the status code of the response
+     * @param latencyNanos the time until the response headers were received, excluding the wait for a permit
+     */
+    void onResponse(String method, int code, long latencyNanos);
+
+    /**
+     * Called if the request failed without a response, e.g. due to a timeout.
+     */
+    void onConnectionFailure();
+}
@@ -0,0 +1,45 @@
+package at.sv.hue.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variant of the put operations of {@link HueApi} that runs the blocking calls on virtual threads and returns futures,
+ * so that the caller can issue several calls at once. The requests themselves are not asynchronous: each call still
+ * blocks its virtual thread while waiting for the rate limiter and the http response. The returned futures complete
+ * once the respective blocking call has returned. Failures complete them exceptionally, with the same exceptions the
+ * blocking calls throw.
+ */
+public interface VirtualThreadHueApi {
+
+    /**
+     * @see HueApi#putState(PutCall)
+     */
+    CompletableFuture<Void> putStateAsync(PutCall putCall);
+
+    /**
+     * @see HueApi#putGroupState(PutCall)
+     */
+    CompletableFuture<Void> putGroupStateAsync(PutCall putCall);
+
+    /**
+     * @see HueApi#putSceneState(String, List)
+     */
+    CompletableFuture<Void> putSceneStateAsync(String groupId, List<PutCall> putCalls);
+
+    /**
+     * @see HueApi#createOrUpdateScene(String, String, List)
+     */
+    CompletableFuture<Void> createOrUpdateSceneAsync(String groupId, String sceneSyncName, List<PutCall> putCalls);
+
+    /**
+     * @return the given api, if it implements these calls itself. Otherwise, an adapter running the blocking calls of
+     * the given api on virtual threads.
+     */
+    static VirtualThreadHueApi of(HueApi api) {
+        if (api instanceof VirtualThreadHueApi virtualThreadHueApi) {
+            return virtualThreadHueApi;
+        }
+        return new VirtualThreadHueApiAdapter(api);
+    }
+}
@@ -0,0 +1,47 @@
+package at.sv.hue.api;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the blocking calls of an api, that does not implement {@link VirtualThreadHueApi} itself, on virtual threads.
+ * Scene updates are the exception: they are run right away on the calling thread, as such an api is not expected to
+ * handle concurrent updates of its scenes.
+ */
+final class VirtualThreadHueApiAdapter implements VirtualThreadHueApi {
+
+    private final HueApi api;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    VirtualThreadHueApiAdapter(HueApi api) {
+        this.api = api;
+    }
+
+    @Override
+    public CompletableFuture<Void> putStateAsync(PutCall putCall) {
+        return CompletableFuture.runAsync(() -> api.putState(putCall), AsyncCalls.withCurrentContext(executor));
+    }
+
+    @Override
+    public CompletableFuture<Void> putGroupStateAsync(PutCall putCall) {
+        return CompletableFuture.runAsync(() -> api.putGroupState(putCall), AsyncCalls.withCurrentContext(executor));
+    }
+
+    @Override
+    public CompletableFuture<Void> putSceneStateAsync(String groupId, List<PutCall> putCalls) {
+        return CompletableFuture.runAsync(() -> api.putSceneState(groupId, putCalls),
+                AsyncCalls.withCurrentContext(executor));
+    }
+
+    @Override
+    public CompletableFuture<Void> createOrUpdateSceneAsync(String groupId, String sceneSyncName, List<PutCall> putCalls) {
+        try {
+            api.createOrUpdateScene(groupId, sceneSyncName, putCalls);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import at.sv.hue.Effect;
 import at.sv.hue.ScheduledLightState;
 import at.sv.hue.api.AffectedId;
 import at.sv.hue.api.ApiFailure;
+import at.sv.hue.api.AsyncCalls;
 import at.sv.hue.api.BridgeAuthenticationFailure;
 import at.sv.hue.api.BridgeConnectionFailure;
 import at.sv.hue.api.Capability;
@@ -19,13 +20,18 @@ import at.sv.hue.api.LightNotFoundException;
 import at.sv.hue.api.LightState;
 import at.sv.hue.api.NonUniqueNameException;
 import at.sv.hue.api.PutCall;
+import at.sv.hue.api.PutCallCoalescer;
 import at.sv.hue.api.RateLimiter;
+import at.sv.hue.api.ResourceClass;
 import at.sv.hue.api.hass.area.HassAreaRegistry;
+import at.sv.hue.api.hass.area.HassWebSocketClient;
+import at.sv.hue.api.hass.area.HassWebSocketException;
 import at.sv.hue.color.XYColorGamutCorrection;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 
@@ -35,13 +41,17 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import static at.sv.hue.api.hass.BrightnessConverter.hassToHueBrightness;
@@ -52,23 +62,48 @@ public class HassApiImpl implements HueApi {
     private final HttpResourceProvider httpResourceProvider;
     private final HassAreaRegistry hassAreaRegistry;
     private final RateLimiter rateLimiter;
+    private final PutCallCoalescer putCallCoalescer;
     private final HassAvailabilityListener availabilityListener;
     private final ObjectMapper mapper;
     private final String baseUrl;
+    private final boolean stateMirror;
+    private final HassWebSocketClient commandClient;
+    private final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
-    private final Object lightMapLock = new Object();
-    private Map<String, State> availableStates;
-    private boolean availableStatesInvalidated;
-    private Map<String, List<State>> nameToStatesMap;
-    private boolean nameToStatesMapInvalidated;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final Object updateLock = new Object();
+    private volatile StateSnapshot availableStates;
+    private volatile boolean availableStatesInvalidated;
+    private List<StateModification> modificationsDuringLoad;
 
     public HassApiImpl(String origin, HttpResourceProvider httpResourceProvider, HassAreaRegistry hassAreaRegistry,
                        HassAvailabilityListener availabilityListener, RateLimiter rateLimiter) {
+        this(origin, httpResourceProvider, hassAreaRegistry, availabilityListener, rateLimiter, false);
+    }
+
+    public HassApiImpl(String origin, HttpResourceProvider httpResourceProvider, HassAreaRegistry hassAreaRegistry,
+                       HassAvailabilityListener availabilityListener, RateLimiter rateLimiter, boolean stateMirror) {
+        this(origin, httpResourceProvider, hassAreaRegistry, availabilityListener, rateLimiter, stateMirror, null);
+    }
+
+    /**
+     * @param stateMirror if true, all states are served from the cached states, which are kept up to date by
+     *                    {@link #onModification} and only reloaded after {@link #resyncStates()}, instead of being
+     *                    requested again for every light and group state
+     * @param commandClient if not null, all services are called with commands over this websocket connection, instead
+     *                      of REST requests. States are still requested via REST, where the response is streamed.
+     */
+    public HassApiImpl(String origin, HttpResourceProvider httpResourceProvider, HassAreaRegistry hassAreaRegistry,
+                       HassAvailabilityListener availabilityListener, RateLimiter rateLimiter, boolean stateMirror,
+                       HassWebSocketClient commandClient) {
+        this.stateMirror = stateMirror;
+        this.commandClient = commandClient;
         baseUrl = origin + "/api";
         this.httpResourceProvider = httpResourceProvider;
         this.hassAreaRegistry = hassAreaRegistry;
         this.availabilityListener = availabilityListener;
         this.rateLimiter = rateLimiter;
+        putCallCoalescer = new PutCallCoalescer(rateLimiter);
         mapper = new ObjectMapper();
         mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
         mapper.setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
@@ -109,6 +144,9 @@ public class HassApiImpl implements HueApi {
     @Override
     public LightState getLightState(String id) {
         assertSupportedStateType(id);
+        if (stateMirror) {
+            return createLightState(getAndAssertLightExists(id));
+        }
         String response = httpResourceProvider.getResource(createUrl("/states/" + id));
         try {
             State state = mapper.readValue(response, State.class);
@@ -121,7 +159,7 @@ public class HassApiImpl implements HueApi {
     @Override
     public List<LightState> getGroupStates(String id) {
         List<String> groupLights = getGroupLights(id);
-        Map<String, State> currentStates = lookupStates();
+        Map<String, State> currentStates = stateMirror ? getOrLookupStates() : lookupStates();
         return groupLights.stream()
                           .map(currentStates::get)
                           .filter(Objects::nonNull)
@@ -144,19 +182,75 @@ public class HassApiImpl implements HueApi {
 
     @Override
     public void putState(PutCall putCall) {
-        rateLimiter.acquire(1);
-        putStateInternal(putCall);
+        putCallCoalescer.put(putCall.getId(), putCall, 1, ResourceClass.LIGHT, this::putStateInternal);
     }
 
     @Override
     public void putGroupState(PutCall putCall) {
-        rateLimiter.acquire(10);
-        putStateInternal(putCall);
+        putCallCoalescer.put(putCall.getId(), putCall, 10, ResourceClass.GROUPED_LIGHT, this::putStateInternal);
     }
 
+    /**
+     * Entities with an identical target state are updated with a single service call. The calls for different target
+     * states are sent concurrently. Pending single updates of the entities are sent first, so that they can't overwrite
+     * the newer scene state.
+     */
     @Override
     public void putSceneState(String groupId, List<PutCall> putCalls) {
-        putCalls.forEach(this::putState);
+        Map<ServiceCall, List<String>> entitiesByCall = new LinkedHashMap<>();
+        for (PutCall putCall : putCalls) {
+            assertSupportedStateType(putCall.getId());
+            ServiceCall serviceCall = new ServiceCall(getService(putCall), getChangeState(putCall));
+            entitiesByCall.computeIfAbsent(serviceCall, _ -> new ArrayList<>()).add(putCall.getId());
+        }
+        Executor executor = AsyncCalls.withCurrentContext(asyncExecutor);
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        entitiesByCall.forEach((serviceCall, entityIds) ->
+                calls.add(CompletableFuture.runAsync(() -> callService(serviceCall, entityIds), executor)));
+        AsyncCalls.joinAll(calls);
+    }
+
+    private void callService(ServiceCall serviceCall, List<String> entityIds) {
+        entityIds.forEach(putCallCoalescer::awaitPending);
+        rateLimiter.acquire(1, ResourceClass.LIGHT);
+        ChangeState changeState = serviceCall.changeState();
+        changeState.setEntity_id(entityIds.size() == 1 ? entityIds.getFirst() : entityIds);
+        callService(serviceCall.service(), changeState);
+    }
+
+    private void callService(Service service, Object serviceData) {
+        if (commandClient == null) {
+            httpResourceProvider.postResource(createUrl("/services/" + service.domain() + "/" + service.name()),
+                    getBody(serviceData));
+        } else {
+            sendCommand("call_service", Map.of("domain", service.domain(),
+                    "service", service.name(),
+                    "service_data", mapper.valueToTree(serviceData)));
+        }
+    }
+
+    /**
+     * @return the result of the command
+     * @throws BridgeConnectionFailure if the command could not be sent, or no response has been received in time
+     * @throws ApiFailure              if Home Assistant responded with an error
+     */
+    private JsonNode sendCommand(String commandType, Map<String, Object> fields) {
+        String response;
+        try {
+            response = commandClient.sendCommand(commandType, fields);
+        } catch (HassWebSocketException e) {
+            throw new BridgeConnectionFailure("Failed to send '" + commandType + "' command: " + e.getMessage(), e);
+        }
+        JsonNode node;
+        try {
+            node = mapper.readTree(response);
+        } catch (JsonProcessingException e) {
+            throw new ApiFailure("Failed to parse response of '" + commandType + "' command: " + e.getLocalizedMessage());
+        }
+        if (!node.path("success").asBoolean()) {
+            throw new ApiFailure("Command '" + commandType + "' failed: " + node.path("error").path("message").asText());
+        }
+        return node.path("result");
     }
 
     @Override
@@ -169,7 +263,7 @@ public class HassApiImpl implements HueApi {
         assertSupportedStateType(id);
         ChangeState changeState = getChangeState(putCall);
         changeState.setEntity_id(id);
-        httpResourceProvider.postResource(getUpdateUrl(putCall), getBody(changeState));
+        callService(getService(putCall), changeState);
     }
 
     private ChangeState getChangeState(PutCall putCall) {
@@ -356,39 +450,82 @@ public class HassApiImpl implements HueApi {
             sceneStates.put(putCall.getId(), changeState);
         }
         createScene.setEntities(sceneStates);
-        rateLimiter.acquire(1);
-        httpResourceProvider.postResource(createUrl("/services/scene/create"), getBody(createScene));
+        rateLimiter.acquire(1, ResourceClass.SCENE);
+        callService(new Service("scene", "create"), createScene);
     }
 
     @Override
     public void clearCaches() {
-        synchronized (lightMapLock) {
-            availableStatesInvalidated = true;
-            nameToStatesMapInvalidated = true;
+        if (!stateMirror) {
+            resyncStates();
         }
         hassAreaRegistry.clearCaches();
     }
 
-    private Map<String, List<State>> getOrLookupNameToStateMap() {
-        synchronized (lightMapLock) {
-            if (nameToStatesMap == null || nameToStatesMapInvalidated) {
-                nameToStatesMap = new HashMap<>();
-                getOrLookupStates().forEach((_, state) ->
-                        nameToStatesMap.computeIfAbsent(state.attributes.friendly_name, _ -> new ArrayList<>()).add(state));
-                nameToStatesMapInvalidated = false;
+    /**
+     * Reloads all states on their next access, as state changes might have been missed, e.g., while the event stream
+     * was disconnected.
+     */
+    public void resyncStates() {
+        availableStatesInvalidated = true;
+    }
+
+    private Map<String, State> getOrLookupStates() {
+        return getOrLookupSnapshot().getStates();
+    }
+
+    /**
+     * Reads never wait for a reload, unless no states have been loaded yet. While one thread reloads invalidated
+     * states, the others keep using the previous snapshot.
+     */
+    private StateSnapshot getOrLookupSnapshot() {
+        StateSnapshot current = availableStates;
+        if (current != null && !availableStatesInvalidated) {
+            return current;
+        }
+        if (current == null) {
+            loadLock.lock();
+        } else if (!loadLock.tryLock()) {
+            return current;
+        }
+        try {
+            current = availableStates;
+            if (current != null && !availableStatesInvalidated) {
+                return current;
             }
+            return reloadStates();
+        } finally {
+            loadLock.unlock();
         }
-        return nameToStatesMap;
     }
 
-    private Map<String, State> getOrLookupStates() {
-        synchronized (lightMapLock) {
-            if (availableStates == null || availableStatesInvalidated) {
-                availableStates = lookupStates();
-                availableStatesInvalidated = false;
+    /**
+     * Modifications received while the states are requested are applied on top of the loaded states, as the response
+     * might not contain them yet.
+     */
+    private StateSnapshot reloadStates() {
+        availableStatesInvalidated = false;
+        synchronized (updateLock) {
+            modificationsDuringLoad = new ArrayList<>();
+        }
+        try {
+            Map<String, State> loadedStates = lookupStates();
+            synchronized (updateLock) {
+                StateSnapshot loaded = StateSnapshot.of(loadedStates);
+                for (StateModification modification : modificationsDuringLoad) {
+                    loaded = loaded.with(modification.entityId(), modification.newState());
+                }
+                availableStates = loaded;
+                return loaded;
+            }
+        } catch (RuntimeException e) {
+            availableStatesInvalidated = true;
+            throw e;
+        } finally {
+            synchronized (updateLock) {
+                modificationsDuringLoad = null;
             }
         }
-        return availableStates;
     }
 
     private State getAndAssertLightExists(String id) {
@@ -399,19 +536,25 @@ public class HassApiImpl implements HueApi {
         return state;
     }
 
+    /**
+     * Always uses REST, even with a command client: the "get_states" reply over the websocket would have to be buffered
+     * as a whole, while the REST response is streamed.
+     */
     private Map<String, State> lookupStates() {
-        String response = httpResourceProvider.getResource(createUrl("/states"));
-        try {
-            List<State> states = mapper.readValue(response, new TypeReference<>() {
-            });
-            return states.stream()
-                         .collect(Collectors.toConcurrentMap(State::getEntity_id, Function.identity()));
-        } catch (JsonProcessingException | NullPointerException e) {
-            throw new ApiFailure("Failed to parse light states response '" + response + "': " + e.getLocalizedMessage());
-        }
+        return httpResourceProvider.getResource(createUrl("/states"), body -> {
+            Map<String, State> states = new ConcurrentHashMap<>();
+            try (MappingIterator<State> iterator = mapper.readerFor(State.class).readValues(body)) {
+                while (iterator.hasNextValue()) {
+                    State state = iterator.nextValue();
+                    states.put(state.getEntity_id(), state);
+                }
+            } catch (JsonProcessingException | NullPointerException e) {
+                throw new ApiFailure("Failed to parse light states response: " + e.getLocalizedMessage());
+            }
+            return states;
+        });
     }
 
-
     private URL createUrl(String url) {
         try {
             return new URI(baseUrl + url).toURL();
@@ -559,7 +702,7 @@ public class HassApiImpl implements HueApi {
     }
 
     private List<State> getOrLookupStatesByName(String name) {
-        List<State> states = getOrLookupNameToStateMap().get(name);
+        List<State> states = getOrLookupSnapshot().getStatesByName(name);
         if (states == null) {
             throw new LightNotFoundException("Entity with name '" + name + "' was not found!");
         }
@@ -587,16 +730,16 @@ public class HassApiImpl implements HueApi {
         return (float) transitionTime / 10;
     }
 
-    private URL getUpdateUrl(PutCall putCall) {
-        String service = getService(putCall.getId());
+    private Service getService(PutCall putCall) {
+        String domain = getDomain(putCall.getId());
         if (Boolean.FALSE.equals(putCall.getOn())) {
-            return createUrl("/services/" + service + "/turn_off");
+            return new Service(domain, "turn_off");
         } else {
-            return createUrl("/services/" + service + "/turn_on");
+            return new Service(domain, "turn_on");
         }
     }
 
-    private String getService(String id) {
+    private String getDomain(String id) {
         HassSupportedEntityType type = HassSupportedEntityType.fromEntityId(id);
         return type.name().toLowerCase(Locale.ROOT);
     }
@@ -611,22 +754,36 @@ public class HassApiImpl implements HueApi {
 
     @Override
     public void onModification(String type, String entityId, Object content) {
-        synchronized (lightMapLock) {
-            if (availableStates != null && !availableStatesInvalidated) {
-                if (content == null) { // entity deleted
-                    availableStates.remove(entityId);
-                    nameToStatesMapInvalidated = true;
-                } else if (content instanceof State newState) {
-                    availableStates.put(entityId, newState);
-                    nameToStatesMapInvalidated = true;
-                }
+        if (content != null && !(content instanceof State)) {
+            return;
+        }
+        State newState = (State) content; // null if the entity has been deleted
+        synchronized (updateLock) {
+            if (modificationsDuringLoad != null) {
+                modificationsDuringLoad.add(new StateModification(entityId, newState));
+            }
+            if (availableStates != null) {
+                availableStates = availableStates.with(entityId, newState);
             }
         }
     }
 
+    private record StateModification(String entityId, State newState) {
+    }
+
+    /**
+     * @param domain e.g. "light"
+     * @param name   e.g. "turn_on"
+     */
+    private record Service(String domain, String name) {
+    }
+
+    private record ServiceCall(Service service, ChangeState changeState) {
+    }
+
     @Data
     private static final class ChangeState {
-        String entity_id;
+        Object entity_id; // a single entity id, or a list of them
         String state;
         Integer brightness;
         Integer color_temp_kelvin;
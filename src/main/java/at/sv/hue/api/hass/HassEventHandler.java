@@ -4,34 +4,65 @@ import at.sv.hue.api.BridgeAuthenticationFailure;
 import at.sv.hue.api.LightEventListener;
 import at.sv.hue.api.ResourceModificationEventListener;
 import at.sv.hue.api.SceneEventListener;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 
 public final class HassEventHandler {
 
+    /**
+     * Resource type reported for modifications that changed the members of a group entity, e.g. a light group or
+     * a Hue room or zone exposed by HA.
+     */
+    public static final String GROUP_MEMBERSHIP_TYPE = "group";
+    private static final String[] ENTITY_ID_PATH = {"event", "data", "entity_id"};
+
     private final ObjectMapper objectMapper;
     private final LightEventListener eventListener;
     private final SceneEventListener sceneEventListener;
     private final HassAvailabilityEventListener availabilityListener;
     private final ResourceModificationEventListener resourceModificationEventListener;
+    private final Runnable resyncListener;
 
     public HassEventHandler(LightEventListener eventListener, SceneEventListener sceneEventListener,
                             HassAvailabilityEventListener availabilityListener,
                             ResourceModificationEventListener resourceModificationEventListener) {
+        this(eventListener, sceneEventListener, availabilityListener, resourceModificationEventListener, () -> {
+        });
+    }
+
+    /**
+     * @param resyncListener called whenever state changes might have been missed, i.e., on (re)connect and once HA
+     *                       has started, so that state kept up to date by the forwarded modifications can be reloaded
+     */
+    public HassEventHandler(LightEventListener eventListener, SceneEventListener sceneEventListener,
+                            HassAvailabilityEventListener availabilityListener,
+                            ResourceModificationEventListener resourceModificationEventListener,
+                            Runnable resyncListener) {
         this.eventListener = eventListener;
         this.sceneEventListener = sceneEventListener;
         this.availabilityListener = availabilityListener;
         this.resourceModificationEventListener = resourceModificationEventListener;
+        this.resyncListener = resyncListener;
         objectMapper = new ObjectMapper();
         objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
+    public void onConnected() {
+        resyncListener.run();
+    }
+
     public void onMessage(String text) {
         try {
+            if (isIrrelevantStateChange(text)) {
+                return;
+            }
             Event event = objectMapper.readValue(text, Event.class);
             if ("auth_invalid".equals(event.type)) {
                 throw new BridgeAuthenticationFailure();
@@ -40,17 +71,55 @@ public final class HassEventHandler {
                 EventData data = event.event.data;
                 handleStateChangedEvent(data.getEntity_id(), data.old_state, data.new_state);
             } else if (event.isHomeAssistantStartedEvent()) {
+                resyncListener.run();
                 availabilityListener.onStarted();
             }
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Most state changes are of entities that can't be scheduled, e.g., sensors. To not fully bind each of them, the
+     * entity id is read with a streaming parser first, which skips over any nested objects before it.
+     */
+    private boolean isIrrelevantStateChange(String text) throws IOException {
+        String entityId;
+        try (JsonParser parser = objectMapper.createParser(text)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            entityId = readStringField(parser, ENTITY_ID_PATH, 0);
+        }
+        return entityId != null && !isRelevantEntity(entityId);
+    }
+
+    private static String readStringField(JsonParser parser, String[] path, int depth) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!path[depth].equals(fieldName)) {
+                parser.skipChildren();
+            } else if (depth == path.length - 1) {
+                return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+            } else if (value == JsonToken.START_OBJECT) {
+                return readStringField(parser, path, depth + 1);
+            } else {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRelevantEntity(String entityId) {
+        return HassSupportedEntityType.isSupportedEntityType(entityId) || entityId.startsWith("scene.");
+    }
+
     private void handleStateChangedEvent(String entityId, State oldState, State newState) {
         boolean supportedEntityType = HassSupportedEntityType.isSupportedEntityType(entityId);
-        if (supportedEntityType || entityId.startsWith("scene.")) {
-            resourceModificationEventListener.onModification(null, entityId, newState);
+        if (isRelevantEntity(entityId)) {
+            String type = hasGroupMembershipChanged(entityId, oldState, newState) ? GROUP_MEMBERSHIP_TYPE : null;
+            resourceModificationEventListener.onModification(type, entityId, newState);
         }
 
         if (newState == null || oldState == null) {
@@ -73,6 +142,23 @@ public final class HassEventHandler {
         }
     }
 
+    private static boolean hasGroupMembershipChanged(String entityId, State oldState, State newState) {
+        if (entityId.startsWith("scene.")) {
+            return false;
+        }
+        return !Objects.equals(getGroupMembers(oldState), getGroupMembers(newState));
+    }
+
+    private static List<String> getGroupMembers(State state) {
+        if (state == null || state.attributes == null) {
+            return null;
+        }
+        if (state.attributes.entity_id != null) {
+            return state.attributes.entity_id;
+        }
+        return state.attributes.lights;
+    }
+
     @Data
     private static final class Event {
         int id;
@@ -54,6 +54,7 @@ public final class HassEventStreamReader {
                 authenticate(webSocket);
                 subscribeToEvents(webSocket, "state_changed");
                 subscribeToEvents(webSocket, "homeassistant_started");
+                hassEventHandler.onConnected();
                 MDC.remove("context");
             }
 
@@ -0,0 +1,93 @@
+package at.sv.hue.api.hass;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable view of all entity states, indexed by entity id and by friendly name. Changing a single entity creates a
+ * copy with only that entity and its name entries updated, so readers can use a snapshot without any locking while
+ * updates are swapped in.
+ */
+final class StateSnapshot {
+
+    private final Map<String, State> states;
+    private final Map<String, List<State>> statesByName;
+
+    private StateSnapshot(Map<String, State> states, Map<String, List<State>> statesByName) {
+        this.states = states;
+        this.statesByName = statesByName;
+    }
+
+    static StateSnapshot of(Map<String, State> states) {
+        Map<String, List<State>> statesByName = new HashMap<>();
+        states.values().forEach(state -> statesByName.computeIfAbsent(getName(state), _ -> new ArrayList<>()).add(state));
+        statesByName.replaceAll((_, namedStates) -> List.copyOf(namedStates));
+        return new StateSnapshot(Collections.unmodifiableMap(new HashMap<>(states)),
+                Collections.unmodifiableMap(statesByName));
+    }
+
+    /**
+     * @param newState the new state of the entity, or null if it has been removed
+     * @return a snapshot with the given entity updated
+     */
+    StateSnapshot with(String entityId, State newState) {
+        Map<String, State> updatedStates = new HashMap<>(states);
+        State previousState = newState == null ? updatedStates.remove(entityId) : updatedStates.put(entityId, newState);
+        if (previousState == null && newState == null) {
+            return this;
+        }
+        Map<String, List<State>> updatedStatesByName = new HashMap<>(statesByName);
+        if (previousState != null) {
+            removeFromName(updatedStatesByName, previousState);
+        }
+        if (newState != null) {
+            addToName(updatedStatesByName, newState);
+        }
+        return new StateSnapshot(Collections.unmodifiableMap(updatedStates),
+                Collections.unmodifiableMap(updatedStatesByName));
+    }
+
+    private static void removeFromName(Map<String, List<State>> statesByName, State state) {
+        String name = getName(state);
+        List<State> namedStates = statesByName.get(name);
+        if (namedStates == null) {
+            return;
+        }
+        List<State> remaining = namedStates.stream()
+                                           .filter(namedState -> !Objects.equals(namedState.entity_id, state.entity_id))
+                                           .toList();
+        if (remaining.isEmpty()) {
+            statesByName.remove(name);
+        } else {
+            statesByName.put(name, remaining);
+        }
+    }
+
+    private static void addToName(Map<String, List<State>> statesByName, State state) {
+        List<State> namedStates = new ArrayList<>(statesByName.getOrDefault(getName(state), List.of()));
+        namedStates.add(state);
+        statesByName.put(getName(state), List.copyOf(namedStates));
+    }
+
+    private static String getName(State state) {
+        return state.attributes == null ? null : state.attributes.friendly_name;
+    }
+
+    /**
+     * @return all states by entity id. Unmodifiable.
+     */
+    Map<String, State> getStates() {
+        return states;
+    }
+
+    /**
+     * @return the states with the given friendly name, or null if there are none
+     */
+    List<State> getStatesByName(String name) {
+        return statesByName.get(name);
+    }
+}
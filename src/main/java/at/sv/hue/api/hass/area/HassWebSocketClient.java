@@ -1,5 +1,7 @@
 package at.sv.hue.api.hass.area;
 
+import java.util.Map;
+
 public interface HassWebSocketClient {
     /**
      * Sends a command to the Home Assistant WebSocket API and returns its response synchronously.
@@ -9,4 +11,15 @@ public interface HassWebSocketClient {
      * @throws HassWebSocketException if authentication fails, the connection fails, or a timeout occurs
      */
     String sendCommand(String commandType);
+
+    /**
+     * Sends a command with additional fields, e.g. the domain, service and service data of a "call_service" command,
+     * and returns its response synchronously.
+     *
+     * @param commandType the type of command to send
+     * @param fields      the fields to add to the command message; values are serialized as JSON
+     * @return the response from the Home Assistant server as a JSON string
+     * @throws HassWebSocketException if authentication fails, the connection fails, or a timeout occurs
+     */
+    String sendCommand(String commandType, Map<String, Object> fields);
 }
@@ -50,14 +50,20 @@ public class HassWebSocketClientImpl implements HassWebSocketClient {
 
     @Override
     public String sendCommand(String commandType) {
+        return sendCommand(commandType, Map.of());
+    }
+
+    @Override
+    public String sendCommand(String commandType, Map<String, Object> fields) {
         int id = messageIdCounter.getAndIncrement();
-        return sendAndAwaitResponse(id, createCommandMessage(id, commandType));
+        return sendAndAwaitResponse(id, createCommandMessage(id, commandType, fields));
     }
 
-    private String createCommandMessage(int id, String commandType) {
+    private String createCommandMessage(int id, String commandType, Map<String, Object> fields) {
         ObjectNode command = mapper.createObjectNode();
         command.put("id", id);
         command.put("type", commandType);
+        fields.forEach((name, value) -> command.set(name, mapper.valueToTree(value)));
         return serialize(command);
     }
 
@@ -0,0 +1,113 @@
+package at.sv.hue.api.hue;
+
+import at.sv.hue.api.ApiFailure;
+import at.sv.hue.api.AsyncCalls;
+import at.sv.hue.api.HttpResourceProvider.BodyReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Loads all resources of the bridge with a single request to the {@code /resource} endpoint, instead of one request per
+ * resource type. The response body is streamed element by element, keeping only the given resource types, so neither
+ * the body nor the full tree is ever held in memory. Loads requested while another one is running share its result.
+ */
+final class BulkResourceLoader {
+
+    private final ObjectMapper mapper;
+    private final Map<String, Class<?>> resourceTypes;
+    private final Function<BodyReader<Map<String, Map<String, Object>>>, Map<String, Map<String, Object>>> fetcher;
+    private final Object lock = new Object();
+    private CompletableFuture<Map<String, Map<String, Object>>> runningLoad;
+
+    /**
+     * @param resourceTypes the classes to bind, per resource type, e.g. "light"
+     * @param fetcher       performs the request and passes the response body to the given reader
+     */
+    BulkResourceLoader(ObjectMapper mapper, Map<String, Class<?>> resourceTypes,
+                       Function<BodyReader<Map<String, Map<String, Object>>>, Map<String, Map<String, Object>>> fetcher) {
+        this.mapper = mapper;
+        this.resourceTypes = resourceTypes;
+        this.fetcher = fetcher;
+    }
+
+    /**
+     * @return the resources by id, per resource type. Contains a (possibly empty) map for every given type.
+     * @throws ApiFailure if the request failed or the response could not be parsed
+     */
+    Map<String, Map<String, Object>> load() {
+        CompletableFuture<Map<String, Map<String, Object>>> load;
+        boolean joined;
+        synchronized (lock) {
+            joined = runningLoad != null;
+            if (!joined) {
+                runningLoad = new CompletableFuture<>();
+            }
+            load = runningLoad;
+        }
+        if (joined) {
+            return AsyncCalls.join(load);
+        }
+        try {
+            Map<String, Map<String, Object>> resources = fetcher.apply(this::read);
+            load.complete(resources);
+            return resources;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (lock) {
+                runningLoad = null;
+            }
+        }
+    }
+
+    Map<String, Map<String, Object>> read(InputStream body) throws IOException {
+        Map<String, Map<String, Object>> resources = new HashMap<>();
+        resourceTypes.keySet().forEach(type -> resources.put(type, new ConcurrentHashMap<>()));
+        try (JsonParser parser = mapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new ApiFailure("Failed to parse resources: Expected JSON object");
+            }
+            boolean hasData = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("data".equals(fieldName) && value == JsonToken.START_ARRAY) {
+                    hasData = true;
+                    readData(parser, resources);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!hasData) {
+                throw new ApiFailure("Failed to parse resources: Missing data");
+            }
+        } catch (JsonProcessingException e) {
+            throw new ApiFailure("Failed to parse resources: " + e.getLocalizedMessage());
+        }
+        return resources;
+    }
+
+    private void readData(JsonParser parser, Map<String, Map<String, Object>> resources) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            JsonNode resource = mapper.readTree(parser);
+            Class<?> resourceClass = resourceTypes.get(resource.path("type").asText());
+            String id = resource.path("id").asText(null);
+            if (resourceClass == null || id == null) {
+                continue;
+            }
+            resources.get(resource.get("type").asText()).put(id, mapper.treeToValue(resource, resourceClass));
+        }
+    }
+}
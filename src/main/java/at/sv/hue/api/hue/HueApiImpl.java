@@ -7,6 +7,7 @@ import at.sv.hue.Pair;
 import at.sv.hue.ScheduledLightState;
 import at.sv.hue.api.AffectedId;
 import at.sv.hue.api.ApiFailure;
+import at.sv.hue.api.AsyncCalls;
 import at.sv.hue.api.Capability;
 import at.sv.hue.api.EmptyGroupException;
 import at.sv.hue.api.GroupInfo;
@@ -19,8 +20,11 @@ import at.sv.hue.api.LightNotFoundException;
 import at.sv.hue.api.LightState;
 import at.sv.hue.api.NonUniqueNameException;
 import at.sv.hue.api.PutCall;
+import at.sv.hue.api.PutCallCoalescer;
 import at.sv.hue.api.RateLimiter;
+import at.sv.hue.api.ResourceClass;
 import at.sv.hue.api.SceneNotFoundException;
+import at.sv.hue.api.VirtualThreadHueApi;
 import at.sv.hue.color.ColorModeConverter;
 import at.sv.hue.color.XYColorGamutCorrection;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -32,6 +36,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
@@ -44,6 +49,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
@@ -52,13 +58,20 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Slf4j
-public final class HueApiImpl implements HueApi {
+public final class HueApiImpl implements HueApi, VirtualThreadHueApi {
 
     private static final String CACHE_KEY_LIGHTS = "allLights";
     private static final String CACHE_KEY_DEVICES = "allDevices";
@@ -68,11 +81,18 @@ public final class HueApiImpl implements HueApi {
     private static final String CACHE_KEY_ROOMS = "allRooms";
     private static final String CACHE_KEY_ZIGBEE_CONNECTIVITY = "allZigbeeConnectivity";
     private static final int DEFAULT_HUE_TRANSITION_TIME = 4; // 400ms in 100ms units
+    private static final int SCENE_SYNC_DEBOUNCE_IN_MS = 250;
+    private static final int REQUEST_BODY_CACHE_SIZE = 512;
+    /**
+     * The rate limit permits of a grouped_light update, as the bridge only allows about one group update per second
+     */
+    public static final int GROUP_UPDATE_PERMITS = 10;
 
     private final HttpResourceProvider resourceProvider;
     private final ObjectMapper mapper;
     private final String baseApi;
     private final RateLimiter rateLimiter;
+    private final PutCallCoalescer putCallCoalescer;
     private final String sceneControlName;
     private final String sceneControlAppData;
     private final int sceneUpdateSleepDelayInMs;
@@ -85,10 +105,33 @@ public final class HueApiImpl implements HueApi {
     private final AsyncLoadingCache<String, Map<String, Group>> availableRoomsCache;
     private final AsyncLoadingCache<String, Map<String, ZigbeeConnectivity>> availableZigbeeConnectivityCache;
     private final Cache<String, String> fastSceneUpdateIds;
+    private final Cache<RequestBodyKey, String> requestBodies;
+    private final ResourceIndex<LightLookup> lightIndex = new ResourceIndex<>();
+    private final ResourceIndex<GroupLookup> groupIndex = new ResourceIndex<>();
+    private final ResourceIndex<Map<String, List<Group>>> assignedGroupsIndex = new ResourceIndex<>();
+    private final ResourceIndex<SceneLookup> sceneIndex = new ResourceIndex<>();
+    private final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScenePipeline sceneControlPipeline = new ScenePipeline(0);
+    private final ScenePipeline sceneSyncPipeline = new ScenePipeline(SCENE_SYNC_DEBOUNCE_IN_MS);
+    private final Map<String, SceneFingerprint> writtenSceneFingerprints = new ConcurrentHashMap<>();
+    private final AtomicLong sceneInputModifications = new AtomicLong();
+    private final BulkResourceLoader bulkResourceLoader;
+    private final Map<String, CachedResources<?>> cachedResourcesByType;
 
     public HueApiImpl(HttpResourceProvider resourceProvider, String host, RateLimiter rateLimiter,
                       int apiCacheInvalidationIntervalInMinutes, String sceneControlName, String sceneControlAppData,
                       int sceneUpdateSleepDelayInMs, int fastSceneUpdateSleepDelayInMs) {
+        this(resourceProvider, host, rateLimiter, apiCacheInvalidationIntervalInMinutes, sceneControlName,
+                sceneControlAppData, sceneUpdateSleepDelayInMs, fastSceneUpdateSleepDelayInMs, false);
+    }
+
+    /**
+     * @param bulkResourceRefresh if true, all resource caches are loaded with a single request to the /resource
+     *                            endpoint, instead of one request per resource type
+     */
+    public HueApiImpl(HttpResourceProvider resourceProvider, String host, RateLimiter rateLimiter,
+                      int apiCacheInvalidationIntervalInMinutes, String sceneControlName, String sceneControlAppData,
+                      int sceneUpdateSleepDelayInMs, int fastSceneUpdateSleepDelayInMs, boolean bulkResourceRefresh) {
         this.resourceProvider = resourceProvider;
         mapper = new ObjectMapper();
         mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
@@ -97,20 +140,40 @@ public final class HueApiImpl implements HueApi {
         assertNotHttpSchemeProvided(host);
         baseApi = "https://" + host + "/clip/v2/resource";
         this.rateLimiter = rateLimiter;
+        putCallCoalescer = new PutCallCoalescer(rateLimiter);
         this.sceneControlName = sceneControlName;
         this.sceneControlAppData = sceneControlAppData;
         this.sceneUpdateSleepDelayInMs = sceneUpdateSleepDelayInMs;
         this.fastSceneUpdateSleepDelayInMs = fastSceneUpdateSleepDelayInMs;
-        availableLightsCache = createCache(this::lookupLights, apiCacheInvalidationIntervalInMinutes);
-        availableDevicesCache = createCache(this::lookupDevices, apiCacheInvalidationIntervalInMinutes);
-        availableGroupedLightsCache = createCache(this::lookupGroupedLights, apiCacheInvalidationIntervalInMinutes);
-        availableScenesCache = createCache(this::lookupScenes, apiCacheInvalidationIntervalInMinutes);
-        availableZonesCache = createCache(this::lookupZones, apiCacheInvalidationIntervalInMinutes);
-        availableRoomsCache = createCache(this::lookupRooms, apiCacheInvalidationIntervalInMinutes);
-        availableZigbeeConnectivityCache = createCache(this::lookupZigbeeConnectivity, apiCacheInvalidationIntervalInMinutes);
+        availableLightsCache = createCache(() -> load("light", this::lookupLights), apiCacheInvalidationIntervalInMinutes);
+        availableDevicesCache = createCache(() -> load("device", this::lookupDevices), apiCacheInvalidationIntervalInMinutes);
+        availableGroupedLightsCache = createCache(() -> load("grouped_light", this::lookupGroupedLights), apiCacheInvalidationIntervalInMinutes);
+        availableScenesCache = createCache(() -> load("scene", this::lookupScenes), apiCacheInvalidationIntervalInMinutes);
+        availableZonesCache = createCache(() -> load("zone", this::lookupZones), apiCacheInvalidationIntervalInMinutes);
+        availableRoomsCache = createCache(() -> load("room", this::lookupRooms), apiCacheInvalidationIntervalInMinutes);
+        availableZigbeeConnectivityCache = createCache(() -> load("zigbee_connectivity", this::lookupZigbeeConnectivity), apiCacheInvalidationIntervalInMinutes);
+        cachedResourcesByType = Map.of(
+                "light", new CachedResources<>(availableLightsCache, CACHE_KEY_LIGHTS, Light.class),
+                "device", new CachedResources<>(availableDevicesCache, CACHE_KEY_DEVICES, Device.class),
+                "grouped_light", new CachedResources<>(availableGroupedLightsCache, CACHE_KEY_GROUPED_LIGHTS, Light.class),
+                "scene", new CachedResources<>(availableScenesCache, CACHE_KEY_SCENES, Scene.class),
+                "zone", new CachedResources<>(availableZonesCache, CACHE_KEY_ZONES, Group.class),
+                "room", new CachedResources<>(availableRoomsCache, CACHE_KEY_ROOMS, Group.class),
+                "zigbee_connectivity", new CachedResources<>(availableZigbeeConnectivityCache, CACHE_KEY_ZIGBEE_CONNECTIVITY, ZigbeeConnectivity.class));
+        if (bulkResourceRefresh) {
+            Map<String, Class<?>> resourceTypes = new HashMap<>();
+            cachedResourcesByType.forEach((type, cachedResources) -> resourceTypes.put(type, cachedResources.resourceClass()));
+            bulkResourceLoader = new BulkResourceLoader(mapper, resourceTypes, this::fetchAllResources);
+        } else {
+            bulkResourceLoader = null;
+        }
         fastSceneUpdateIds = Caffeine.newBuilder()
                                      .expireAfterWrite(Duration.ofSeconds(30))
                                      .build();
+        requestBodies = Caffeine.newBuilder()
+                                .maximumSize(REQUEST_BODY_CACHE_SIZE)
+                                .recordStats()
+                                .build();
     }
 
     private static void assertNotHttpSchemeProvided(String host) {
@@ -134,44 +197,38 @@ public final class HueApiImpl implements HueApi {
 
     @Override
     public Identifier getLightIdentifier(String idv1) {
-        return getAvailableLights().values()
-                                   .stream()
-                                   .filter(resource -> idv1.equals(resource.getId_v1()))
-                                   .findFirst()
-                                   .map(resource -> new Identifier(resource.getId(), resource.getName()))
-                                   .orElseThrow(() -> new LightNotFoundException("Could not find light with id '" + idv1 + "'"));
+        Light light = getLightLookup().byIdv1().get(idv1);
+        if (light == null) {
+            throw new LightNotFoundException("Could not find light with id '" + idv1 + "'");
+        }
+        return new Identifier(light.getId(), light.getName());
     }
 
     @Override
     public Identifier getGroupIdentifier(String idv1) {
-        return getAvailableGroups().values()
-                                   .stream()
-                                   .filter(group -> idv1.equals(group.getId_v1()))
-                                   .findFirst()
-                                   .map(group -> new Identifier(group.getGroupedLightId(), group.getName()))
-                                   .orElseThrow(() -> new GroupNotFoundException("Could not find group with id '" + idv1 + "'"));
-
+        Group group = getGroupLookup().byIdv1().get(idv1);
+        if (group == null) {
+            throw new GroupNotFoundException("Could not find group with id '" + idv1 + "'");
+        }
+        return new Identifier(group.getGroupedLightId(), group.getName());
     }
 
     @Override
     public Identifier getLightIdentifierByName(String name) {
-        return getAvailableLights()
-                .values()
-                .stream()
-                .filter(light -> name.equals(light.getName()))
-                .findFirst()
-                .map(light -> new Identifier(light.getId(), name))
-                .orElseThrow(() -> new LightNotFoundException("Light with name '" + name + "' was not found!"));
+        Light light = getLightLookup().byName().get(name);
+        if (light == null) {
+            throw new LightNotFoundException("Light with name '" + name + "' was not found!");
+        }
+        return new Identifier(light.getId(), name);
     }
 
     @Override
     public Identifier getGroupIdentifierByName(String name) {
-        return getAvailableGroups().values()
-                                   .stream()
-                                   .filter(group -> name.equals(group.metadata.name))
-                                   .findFirst()
-                                   .map(group -> new Identifier(group.getGroupedLightId(), name))
-                                   .orElseThrow(() -> new GroupNotFoundException("Group with name '" + name + "' was not found!"));
+        Group group = getGroupLookup().byName().get(name);
+        if (group == null) {
+            throw new GroupNotFoundException("Group with name '" + name + "' was not found!");
+        }
+        return new Identifier(group.getGroupedLightId(), name);
     }
 
     @Override
@@ -232,8 +289,7 @@ public final class HueApiImpl implements HueApi {
         if (putCall.isNullCall()) {
             return;
         }
-        rateLimiter.acquire(1);
-        putStateInternal("/light/", putCall);
+        putStateInternal("/light/", putCall, 1, ResourceClass.LIGHT);
     }
 
     @Override
@@ -241,31 +297,88 @@ public final class HueApiImpl implements HueApi {
         if (putCall.isNullCall()) {
             return;
         }
-        rateLimiter.acquire(10);
-        putStateInternal("/grouped_light/", putCall);
+        putStateInternal("/grouped_light/", putCall, GROUP_UPDATE_PERMITS, ResourceClass.GROUPED_LIGHT);
     }
 
-    private void putStateInternal(String path, PutCall putCall) {
-        URL url = createUrl(path + putCall.getId());
-        resourceProvider.putResource(url, getBody(getAction(putCall)));
+    private void putStateInternal(String path, PutCall putCall, int permits, ResourceClass resourceClass) {
+        putCallCoalescer.put(path + putCall.getId(), putCall, permits, resourceClass, call -> {
+            URL url = createUrl(path + call.getId());
+            resourceProvider.putResource(url, getRequestBody(call));
+        });
+    }
+
+    /**
+     * Scheduled states often send the very same payload every day, so the serialized bodies are cached by their
+     * normalized put call.
+     */
+    private String getRequestBody(PutCall putCall) {
+        return requestBodies.get(RequestBodyKey.of(putCall), _ -> getBody(getAction(putCall)));
+    }
+
+    /**
+     * @return the hits and misses of the request body cache, to see how much serialization it saves
+     */
+    public CacheStats getRequestBodyCacheStats() {
+        return requestBodies.stats();
     }
 
     @Override
     public void putSceneState(String groupedLightId, List<PutCall> putCalls) {
+        AsyncCalls.join(putSceneStateAsync(groupedLightId, putCalls));
+    }
+
+    @Override
+    public CompletableFuture<Void> putStateAsync(PutCall putCall) {
+        return CompletableFuture.runAsync(() -> putState(putCall), AsyncCalls.withCurrentContext(asyncExecutor));
+    }
+
+    @Override
+    public CompletableFuture<Void> putGroupStateAsync(PutCall putCall) {
+        return CompletableFuture.runAsync(() -> putGroupState(putCall), AsyncCalls.withCurrentContext(asyncExecutor));
+    }
+
+    /**
+     * No thread is parked while waiting between updating and recalling the scene, the recall is scheduled as a delayed
+     * completion instead. Updates of the same group wait for the previous recall, a waiting update is replaced by a
+     * newer one.
+     */
+    @Override
+    public CompletableFuture<Void> putSceneStateAsync(String groupedLightId, List<PutCall> putCalls) {
+        Executor executor = AsyncCalls.withCurrentContext(asyncExecutor);
+        return sceneControlPipeline.submit(groupedLightId, executor, () -> {
+            SceneRecall sceneRecall = updateSceneForRecall(groupedLightId, putCalls);
+            return CompletableFuture.runAsync(() -> recallScene(sceneRecall), getRecallExecutor(sceneRecall, executor));
+        });
+    }
+
+    private static Executor getRecallExecutor(SceneRecall sceneRecall, Executor executor) {
+        if (!sceneRecall.modified()) {
+            return executor;
+        }
+        log.trace("Delay recall by {} to ensure scene is properly recalled before next operation.",
+                Duration.ofMillis(sceneRecall.delayInMs()));
+        return CompletableFuture.delayedExecutor(sceneRecall.delayInMs(), TimeUnit.MILLISECONDS, executor);
+    }
+
+    private SceneRecall updateSceneForRecall(String groupedLightId, List<PutCall> putCalls) {
         SceneUpdateResult result = createOrUpdateSceneInternal(groupedLightId, sceneControlAppData, sceneControlName,
                 removeTransitionTime(putCalls));
         boolean fastUpdate = consumeFastSceneUpdate(groupedLightId);
-        if (result.modified) {
-            if (fastUpdate) {
-                sleep(fastSceneUpdateSleepDelayInMs);
-            } else {
-                sleep(sceneUpdateSleepDelayInMs);
-            }
-        }
-        Integer recallDuration = getRecallDuration(putCalls);
-        recallScene(result.sceneId, recallDuration);
-        log.trace("Recalled temp scene for {}. Modified: {}. Transition time: {}", groupedLightId, result.modified,
-                recallDuration);
+        int delayInMs = fastUpdate ? fastSceneUpdateSleepDelayInMs : sceneUpdateSleepDelayInMs;
+        return new SceneRecall(groupedLightId, result.sceneId, result.modified, delayInMs, getRecallDuration(putCalls));
+    }
+
+    private void recallScene(SceneRecall sceneRecall) {
+        recallScene(sceneRecall.sceneId(), sceneRecall.recallDuration());
+        log.trace("Recalled temp scene for {}. Modified: {}. Transition time: {}", sceneRecall.groupedLightId(),
+                sceneRecall.modified(), sceneRecall.recallDuration());
+    }
+
+    /**
+     * @param delayInMs how long to wait after a modification before recalling the scene
+     */
+    private record SceneRecall(String groupedLightId, String sceneId, boolean modified, int delayInMs,
+                               Integer recallDuration) {
     }
 
     @Override
@@ -292,19 +405,9 @@ public final class HueApiImpl implements HueApi {
                        .orElse(null);
     }
 
-    private void sleep(int delayInMs) {
-        try {
-            log.trace("Sleep for {} to ensure scene is properly recalled before next operation.",
-                    Duration.ofMillis(delayInMs));
-            Thread.sleep(delayInMs);
-        } catch (InterruptedException ignored) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     private void recallScene(String sceneId, Integer duration) {
         RecallRequest recallBody = new RecallRequest(new Recall("active", duration));
-        rateLimiter.acquire(10);
+        rateLimiter.acquire(10, ResourceClass.SCENE);
         resourceProvider.putResource(createUrl("/scene/" + sceneId), getBody(recallBody));
     }
 
@@ -381,11 +484,10 @@ public final class HueApiImpl implements HueApi {
 
     @Override
     public List<String> getAssignedGroups(String lightId) {
-        return getAvailableGroups().values()
-                                   .stream()
-                                   .filter(group -> getContainedLightIds(group).contains(lightId))
-                                   .map(Group::getGroupedLightId)
-                                   .collect(Collectors.toList());
+        return getAssignedGroupsLookup().getOrDefault(lightId, List.of())
+                                        .stream()
+                                        .map(Group::getGroupedLightId)
+                                        .collect(Collectors.toList());
     }
 
     @Override
@@ -431,8 +533,21 @@ public final class HueApiImpl implements HueApi {
     }
 
     @Override
-    public synchronized void createOrUpdateScene(String groupedLightId, String sceneSyncName, List<PutCall> putCalls) {
-        createOrUpdateSceneInternal(groupedLightId, null, sceneSyncName, putCalls);
+    public void createOrUpdateScene(String groupedLightId, String sceneSyncName, List<PutCall> putCalls) {
+        AsyncCalls.join(createOrUpdateSceneAsync(groupedLightId, sceneSyncName, putCalls));
+    }
+
+    /**
+     * Scenes of different groups are updated in parallel. Rapid updates of the same group are debounced, only the
+     * latest one is written.
+     */
+    @Override
+    public CompletableFuture<Void> createOrUpdateSceneAsync(String groupedLightId, String sceneSyncName,
+                                                           List<PutCall> putCalls) {
+        return sceneSyncPipeline.submit(groupedLightId, AsyncCalls.withCurrentContext(asyncExecutor), () -> {
+            createOrUpdateSceneInternal(groupedLightId, null, sceneSyncName, putCalls);
+            return CompletableFuture.completedFuture(null);
+        });
     }
 
     private record SceneUpdateResult(String sceneId, boolean modified) {
@@ -442,29 +557,74 @@ public final class HueApiImpl implements HueApi {
                                                          List<PutCall> putCalls) {
         Group group = getAndAssertGroupExists(groupedLightId);
         Scene existingScene = getScene(group, appdata, sceneSyncName);
+        if (existingScene != null && isUnchangedSinceLastWrite(existingScene, group, putCalls)) {
+            log.trace("Scene id={} unchanged since last write", existingScene.getId());
+            return new SceneUpdateResult(existingScene.getId(), false);
+        }
         List<SceneAction> actions = createSceneActions(group, putCalls);
         String sceneId;
         boolean modified;
+        List<SceneAction> cachedActions;
         if (existingScene == null) {
             Scene newScene = new Scene(sceneSyncName, appdata, group.toResourceReference(), actions);
             sceneId = createScene(newScene);
             log.trace("Created scene id={}", sceneId);
             newScene.setId(sceneId);
             getAvailableScenes().put(sceneId, newScene); // prepopulate cache
+            sceneIndex.markStale();
             modified = true;
+            cachedActions = newScene.getActions();
         } else if (actionsDiffer(existingScene, actions)) {
             Scene updatedScene = getUpdatedScene(sceneSyncName, appdata, actions);
             updateScene(existingScene, updatedScene);
             log.trace("Updated scene id={}", existingScene.getId());
             sceneId = existingScene.getId();
             modified = true;
+            cachedActions = existingScene.getActions();
         } else {
             sceneId = existingScene.getId();
             modified = false;
+            cachedActions = existingScene.getActions();
         }
+        writtenSceneFingerprints.put(sceneId, createFingerprint(group, putCalls, cachedActions));
         return new SceneUpdateResult(sceneId, modified);
     }
 
+    /**
+     * @return true, if the scene has been written for the same input before, and neither the scene, the group nor the
+     * lights have been reloaded since then. This skips building and comparing the actions for unchanged syncs.
+     */
+    private boolean isUnchangedSinceLastWrite(Scene scene, Group group, List<PutCall> putCalls) {
+        SceneFingerprint fingerprint = writtenSceneFingerprints.get(scene.getId());
+        return fingerprint != null && fingerprint.equals(createFingerprint(group, putCalls, scene.getActions()));
+    }
+
+    private SceneFingerprint createFingerprint(Group group, List<PutCall> putCalls, List<SceneAction> cachedActions) {
+        return new SceneFingerprint(putCalls, group.getChildren(), cachedActions, getAvailableLights(),
+                sceneInputModifications.get());
+    }
+
+    /**
+     * The input the actions of a scene were last written for. The cached scene actions and lights are compared by
+     * identity, as they are replaced once they are reloaded. Lights, rooms and zones are however modified in place by
+     * events, which is tracked by the count of such modifications instead.
+     */
+    private record SceneFingerprint(List<PutCall> putCalls, List<ResourceReference> groupChildren,
+                                    List<SceneAction> cachedActions, Map<String, Light> lights, long modifications) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SceneFingerprint other && putCalls.equals(other.putCalls)
+                   && groupChildren.equals(other.groupChildren) && cachedActions == other.cachedActions
+                   && lights == other.lights && modifications == other.modifications;
+        }
+
+        @Override
+        public int hashCode() {
+            return putCalls.hashCode();
+        }
+    }
+
     private List<SceneAction> createSceneActions(Group group, List<PutCall> putCalls) {
         Map<String, PutCall> putCallMap = putCalls.stream()
                                                   .collect(Collectors.toMap(PutCall::getId, Function.identity()));
@@ -609,7 +769,7 @@ public final class HueApiImpl implements HueApi {
     }
 
     private String createScene(Scene newScene) {
-        rateLimiter.acquire(10);
+        rateLimiter.acquire(10, ResourceClass.SCENE);
         String response = resourceProvider.postResource(createUrl("/scene"), getBody(newScene));
         String id = getAffectedResourceId(response);
         if (id == null) {
@@ -636,7 +796,7 @@ public final class HueApiImpl implements HueApi {
     }
 
     private void updateScene(Scene scene, Scene updatedScene) {
-        rateLimiter.acquire(10);
+        rateLimiter.acquire(10, ResourceClass.SCENE);
         resourceProvider.putResource(createUrl("/scene/" + scene.getId()), getBody(updatedScene));
     }
 
@@ -806,33 +966,56 @@ public final class HueApiImpl implements HueApi {
     }
 
     private List<Scene> findScenesByGroupAndName(Group group, String name) {
-        return getAvailableScenes().values()
-                                   .stream()
-                                   .filter(scene -> scene.isPartOf(group) && name.equals(scene.metadata.name))
-                                   .toList();
+        return getSceneLookup().byName().getOrDefault(SceneKey.of(group, name), List.of());
     }
 
     private List<Scene> findScenesByGroupAndAppdata(Group group, String appdata) {
-        return getAvailableScenes().values()
-                                   .stream()
-                                   .filter(scene -> scene.isPartOf(group) && appdata.equals(scene.metadata.appdata))
-                                   .toList();
+        return getSceneLookup().byAppdata().getOrDefault(SceneKey.of(group, appdata), List.of());
     }
 
-    private Map<String, Light> getAvailableLights() {
-        return availableLightsCache.synchronous().get(CACHE_KEY_LIGHTS);
+    private LightLookup getLightLookup() {
+        Map<String, Light> lights = getAvailableLights();
+        return lightIndex.get(() -> LightLookup.of(lights), lights);
     }
 
-    private Map<String, Light> getAvailableGroupedLights() {
-        return availableGroupedLightsCache.synchronous().get(CACHE_KEY_GROUPED_LIGHTS);
+    private GroupLookup getGroupLookup() {
+        Map<String, Group> rooms = getAvailableRooms();
+        Map<String, Group> zones = getAvailableZones();
+        return groupIndex.get(() -> GroupLookup.of(rooms, zones), rooms, zones);
     }
 
-    private Map<String, Group> getAvailableGroups() {
+    /**
+     * @return the rooms and zones per contained light id. As devices are only loaded if a group references them, the
+     * devices are tracked without triggering a lookup.
+     */
+    private Map<String, List<Group>> getAssignedGroupsLookup() {
         Map<String, Group> rooms = getAvailableRooms();
         Map<String, Group> zones = getAvailableZones();
-        HashMap<String, Group> result = new HashMap<>(rooms);
-        result.putAll(zones);
-        return result;
+        Map<String, Device> devices = availableDevicesCache.synchronous().getIfPresent(CACHE_KEY_DEVICES);
+        return assignedGroupsIndex.get(() -> createAssignedGroupsLookup(rooms, zones), rooms, zones, devices);
+    }
+
+    private Map<String, List<Group>> createAssignedGroupsLookup(Map<String, Group> rooms, Map<String, Group> zones) {
+        Map<String, List<Group>> assignedGroups = new HashMap<>();
+        Stream.concat(rooms.values().stream(), zones.values().stream())
+              .forEach(group -> getContainedLightIds(group)
+                      .stream()
+                      .distinct()
+                      .forEach(lightId -> assignedGroups.computeIfAbsent(lightId, _ -> new ArrayList<>()).add(group)));
+        return assignedGroups;
+    }
+
+    private SceneLookup getSceneLookup() {
+        Map<String, Scene> scenes = getAvailableScenes();
+        return sceneIndex.get(() -> SceneLookup.of(scenes), scenes);
+    }
+
+    private Map<String, Light> getAvailableLights() {
+        return availableLightsCache.synchronous().get(CACHE_KEY_LIGHTS);
+    }
+
+    private Map<String, Light> getAvailableGroupedLights() {
+        return availableGroupedLightsCache.synchronous().get(CACHE_KEY_GROUPED_LIGHTS);
     }
 
     private Map<String, Scene> getAvailableScenes() {
@@ -898,20 +1081,45 @@ public final class HueApiImpl implements HueApi {
         }, Group::getId);
     }
 
+    /**
+     * In bulk mode, all resource types are loaded with a single request. The types other than the requested one are put
+     * into their caches right away, so they don't need a request on their own.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Map<String, T> load(String type, Supplier<Map<String, T>> lookup) {
+        if (bulkResourceLoader == null) {
+            return lookup.get();
+        }
+        Map<String, Map<String, Object>> resources = bulkResourceLoader.load();
+        cachedResourcesByType.forEach((resourceType, cachedResources) -> {
+            if (!resourceType.equals(type)) {
+                cachedResources.put(resources.get(resourceType));
+            }
+        });
+        return (Map<String, T>) cachedResourcesByType.get(type).keepUnchanged(resources.get(type));
+    }
+
+    private <T> T fetchAllResources(HttpResourceProvider.BodyReader<T> reader) {
+        rateLimiter.acquire(1);
+        return resourceProvider.getResource(createUrl(""), reader);
+    }
+
     private <T, C extends DataListContainer<T>> Map<String, T> lookup(String endpoint, TypeReference<C> typeReference,
                                                                       Function<T, String> idFunction) {
         rateLimiter.acquire(1);
-        String response = resourceProvider.getResource(createUrl(endpoint));
-        try {
-            C container = mapper.readValue(response, typeReference);
-            return container.getData().stream().collect(Collectors.toConcurrentMap(idFunction, Function.identity()));
-        } catch (Exception e) {
-            throw new ApiFailure("Failed to parse response '" + response + "': " + e.getLocalizedMessage());
-        }
+        return resourceProvider.getResource(createUrl(endpoint), body -> {
+            try {
+                C container = mapper.readValue(body, typeReference);
+                return container.getData().stream().collect(Collectors.toConcurrentMap(idFunction, Function.identity()));
+            } catch (JsonProcessingException | RuntimeException e) {
+                throw new ApiFailure("Failed to parse response of '" + endpoint + "': " + e.getLocalizedMessage());
+            }
+        });
     }
 
     @Override
     public void clearCaches() {
+        writtenSceneFingerprints.clear();
     }
 
     private static Double[][] getMaxGamut(List<LightCapabilities> lightCapabilities) {
@@ -953,6 +1161,9 @@ public final class HueApiImpl implements HueApi {
         if (type == null || id == null) {
             return;
         }
+        if ("light".equals(type) || "room".equals(type) || "zone".equals(type)) {
+            sceneInputModifications.incrementAndGet(); // invalidates the scene fingerprints
+        }
         if (content != null && !(content instanceof JsonNode)) {
             invalidateCache(type);
             return;
@@ -960,14 +1171,32 @@ public final class HueApiImpl implements HueApi {
         JsonNode update = (JsonNode) content;
         try {
             switch (type) {
-                case "light" -> updateResourceCache(availableLightsCache, CACHE_KEY_LIGHTS, id, update, Light.class);
+                case "light" -> {
+                    boolean addedOrRemoved = updateResourceCache(availableLightsCache, CACHE_KEY_LIGHTS, id, update, Light.class);
+                    if (addedOrRemoved || hasAnyField(update, "metadata", "id_v1")) {
+                        lightIndex.markStale();
+                    }
+                }
                 case "grouped_light" ->
                         updateResourceCache(availableGroupedLightsCache, CACHE_KEY_GROUPED_LIGHTS, id, update, Light.class);
-                case "scene" -> updateResourceCache(availableScenesCache, CACHE_KEY_SCENES, id, update, Scene.class);
-                case "device" ->
-                        updateResourceCache(availableDevicesCache, CACHE_KEY_DEVICES, id, update, Device.class);
-                case "zone" -> updateResourceCache(availableZonesCache, CACHE_KEY_ZONES, id, update, Group.class);
-                case "room" -> updateResourceCache(availableRoomsCache, CACHE_KEY_ROOMS, id, update, Group.class);
+                case "scene" -> {
+                    boolean addedOrRemoved = updateResourceCache(availableScenesCache, CACHE_KEY_SCENES, id, update, Scene.class);
+                    if (addedOrRemoved || hasAnyField(update, "metadata", "group")) {
+                        sceneIndex.markStale();
+                    }
+                }
+                case "device" -> {
+                    updateResourceCache(availableDevicesCache, CACHE_KEY_DEVICES, id, update, Device.class);
+                    assignedGroupsIndex.markStale();
+                }
+                case "zone" -> {
+                    updateResourceCache(availableZonesCache, CACHE_KEY_ZONES, id, update, Group.class);
+                    markGroupIndicesStale();
+                }
+                case "room" -> {
+                    updateResourceCache(availableRoomsCache, CACHE_KEY_ROOMS, id, update, Group.class);
+                    markGroupIndicesStale();
+                }
                 case "zigbee_connectivity" ->
                         updateResourceCache(availableZigbeeConnectivityCache, CACHE_KEY_ZIGBEE_CONNECTIVITY, id, update, ZigbeeConnectivity.class);
                 default -> {
@@ -979,23 +1208,99 @@ public final class HueApiImpl implements HueApi {
         }
     }
 
-    private <T> void updateResourceCache(AsyncLoadingCache<String, Map<String, T>> cache, String cacheKey, String id,
-                                         JsonNode update, Class<T> targetType) throws IOException {
+    /**
+     * @return true, if a resource was added or removed; false if it was updated in place or the cache is not loaded
+     */
+    private <T> boolean updateResourceCache(AsyncLoadingCache<String, Map<String, T>> cache, String cacheKey, String id,
+                                            JsonNode update, Class<T> targetType) throws IOException {
         Map<String, T> resources = cache.synchronous().getIfPresent(cacheKey);
         if (resources == null) {
-            return;
+            return false;
         }
         if (update == null || update.isNull()) {
             resources.remove(id);
-            return;
+            return true;
         }
         T resource = resources.get(id);
         if (resource == null) {
             resource = mapper.treeToValue(update, targetType);
             resources.put(id, resource);
-            return;
+            return true;
         }
         mapper.readerForUpdating(resource).readValue(update.traverse(mapper));
+        return false;
+    }
+
+    /**
+     * Everything {@link #getAction(PutCall)} depends on. The id is only part of the url, off calls only send their
+     * transition time, and the gamut is only used to correct xy colors. The gamut is compared by value, as it is
+     * excluded from the put call equality.
+     */
+    private record RequestBodyKey(PutCall putCall, List<List<Double>> gamut) {
+
+        static RequestBodyKey of(PutCall putCall) {
+            if (putCall.getOn() == Boolean.FALSE) {
+                return new RequestBodyKey(PutCall.builder()
+                                                 .on(false)
+                                                 .transitionTime(putCall.getTransitionTime())
+                                                 .build(), null);
+            }
+            List<List<Double>> gamut = null;
+            if (putCall.getColorMode() == ColorMode.XY && putCall.getGamut() != null) {
+                gamut = Arrays.stream(putCall.getGamut()).map(Arrays::asList).toList();
+            }
+            return new RequestBodyKey(putCall.toBuilder().id(null).gamut(null).build(), gamut);
+        }
+    }
+
+    private record CachedResources<T>(AsyncLoadingCache<String, Map<String, T>> cache, String cacheKey,
+                                      Class<T> resourceClass) {
+
+        void put(Map<String, Object> loaded) {
+            cache.synchronous().put(cacheKey, keepUnchanged(loaded));
+        }
+
+        /**
+         * Keeps the cached object of every resource that did not change, so that anything derived from it stays valid.
+         * If no resource changed at all, the cached map itself is kept. Only completed values are considered, as the
+         * pending one might be the load in progress.
+         */
+        @SuppressWarnings("unchecked")
+        Map<String, T> keepUnchanged(Map<String, Object> loaded) {
+            Map<String, T> resources = (Map<String, T>) (Map<String, ?>) loaded;
+            CompletableFuture<Map<String, T>> current = cache.getIfPresent(cacheKey);
+            if (current == null || !current.isDone() || current.isCompletedExceptionally()) {
+                return resources;
+            }
+            Map<String, T> previous = current.join();
+            boolean unchanged = previous.size() == resources.size();
+            for (Map.Entry<String, T> entry : resources.entrySet()) {
+                T previousResource = previous.get(entry.getKey());
+                if (entry.getValue().equals(previousResource)) {
+                    entry.setValue(previousResource);
+                } else {
+                    unchanged = false;
+                }
+            }
+            return unchanged ? previous : resources;
+        }
+    }
+
+    private static boolean hasAnyField(JsonNode update, String... fieldNames) {
+        if (update == null) {
+            return false;
+        }
+        for (String fieldName : fieldNames) {
+            if (update.has(fieldName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void markGroupIndicesStale() {
+        groupIndex.markStale();
+        assignedGroupsIndex.markStale();
     }
 
     private void invalidateCache(String type) {
@@ -1027,6 +1332,72 @@ public final class HueApiImpl implements HueApi {
         }
     }
 
+    private static <T extends Resource> Map<String, T> indexBy(Collection<T> resources, Function<T, String> keyFunction) {
+        Map<String, T> index = new HashMap<>();
+        for (T resource : resources) {
+            String key = keyFunction.apply(resource);
+            if (key != null) {
+                index.putIfAbsent(key, resource);
+            }
+        }
+        return index;
+    }
+
+    private static String getNameOrNull(Resource resource) {
+        Metadata metadata = resource.getMetadata();
+        if (metadata == null) {
+            return null;
+        }
+        return metadata.getName();
+    }
+
+    private record LightLookup(Map<String, Light> byIdv1, Map<String, Light> byName) {
+        static LightLookup of(Map<String, Light> lights) {
+            return new LightLookup(indexBy(lights.values(), Light::getId_v1),
+                    indexBy(lights.values(), HueApiImpl::getNameOrNull));
+        }
+    }
+
+    private record GroupLookup(Map<String, Group> byIdv1, Map<String, Group> byName) {
+        static GroupLookup of(Map<String, Group> rooms, Map<String, Group> zones) {
+            List<Group> groups = new ArrayList<>(rooms.values());
+            groups.addAll(zones.values());
+            return new GroupLookup(indexBy(groups, Group::getId_v1), indexBy(groups, HueApiImpl::getNameOrNull));
+        }
+    }
+
+    private record SceneLookup(Map<SceneKey, List<Scene>> byName, Map<SceneKey, List<Scene>> byAppdata) {
+        static SceneLookup of(Map<String, Scene> scenes) {
+            return new SceneLookup(groupByKey(scenes.values(), Metadata::getName),
+                    groupByKey(scenes.values(), Metadata::getAppdata));
+        }
+
+        private static Map<SceneKey, List<Scene>> groupByKey(Collection<Scene> scenes,
+                                                             Function<Metadata, String> valueFunction) {
+            Map<SceneKey, List<Scene>> result = new HashMap<>();
+            for (Scene scene : scenes) {
+                if (scene.group == null || scene.metadata == null) {
+                    continue;
+                }
+                String value = valueFunction.apply(scene.metadata);
+                if (value != null) {
+                    SceneKey key = new SceneKey(scene.group.getRid(), scene.group.getRtype(), value);
+                    result.computeIfAbsent(key, _ -> new ArrayList<>()).add(scene);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Copies the group reference, as the scene resources are updated in place.
+     */
+    private record SceneKey(String groupId, String groupType, String value) {
+        static SceneKey of(Group group, String value) {
+            return new SceneKey(group.getId(), group.getType(), value);
+        }
+    }
+
     private interface DataListContainer<T> {
         List<T> getData();
     }
@@ -1,24 +1,45 @@
 package at.sv.hue.api.hue;
 
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
+import okhttp3.Response;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
 import java.io.InputStream;
 import java.security.KeyStore;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 public class HueHttpsClientFactory {
 
     private static final String HUE_BRIDGE_CERTIFICATE = "/hue-bridge-certificate.pem";
+    private static final Duration HTTP2_PING_INTERVAL = Duration.ofSeconds(30);
+    private static final long HTTP2_KEEP_ALIVE_IN_MINUTES = 60;
 
     public static OkHttpClient createHttpsClient(String bridgeIp, String accessToken, boolean insecure) throws Exception {
+        return createHttpsClient(bridgeIp, accessToken, insecure, false);
+    }
+
+    /**
+     * @param http2 if true, HTTP/2 is negotiated with the bridge, so that all requests and the event stream are
+     *              multiplexed over a single connection. The idle connection is kept open and pinged, instead of being
+     *              closed after a few minutes. Falls back to HTTP/1.1 if the bridge does not support it.
+     */
+    public static OkHttpClient createHttpsClient(String bridgeIp, String accessToken, boolean insecure,
+                                                 boolean http2) throws Exception {
         X509TrustManager trustManager;
         if (insecure) {
             log.warn("Disabling SSL certificate validation.");
@@ -27,7 +48,14 @@ public class HueHttpsClientFactory {
             trustManager = createTrustManager();
         }
         SSLContext sslContext = createSSLContext(trustManager);
-        return new OkHttpClient.Builder()
+        OkHttpClient.Builder builder = new OkHttpClient.Builder();
+        if (http2) {
+            builder.protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                   .connectionPool(new ConnectionPool(5, HTTP2_KEEP_ALIVE_IN_MINUTES, TimeUnit.MINUTES))
+                   .pingInterval(HTTP2_PING_INTERVAL)
+                   .addNetworkInterceptor(new ProtocolLogger());
+        }
+        return builder
                 .sslSocketFactory(sslContext.getSocketFactory(), trustManager)
                 .hostnameVerifier((hostname, session) -> hostname.equals(bridgeIp))
                 .addInterceptor(chain -> {
@@ -40,6 +68,27 @@ public class HueHttpsClientFactory {
                 .build();
     }
 
+    /**
+     * Logs the protocol negotiated with the bridge whenever it changes, e.g., once for the first connection.
+     */
+    private static final class ProtocolLogger implements Interceptor {
+
+        private final AtomicReference<Protocol> lastProtocol = new AtomicReference<>();
+
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Protocol protocol = chain.connection() != null ? chain.connection().protocol() : null;
+            if (protocol != null && lastProtocol.getAndSet(protocol) != protocol) {
+                if (protocol == Protocol.HTTP_2) {
+                    log.info("Connected to bridge using HTTP/2");
+                } else {
+                    log.warn("Bridge does not support HTTP/2, using {} instead", protocol);
+                }
+            }
+            return chain.proceed(chain.request());
+        }
+    }
+
     private static X509TrustManager createTrustManager() throws Exception {
         Certificate certificate = loadCertificate();
         KeyStore keyStore = createKeyStore(certificate);
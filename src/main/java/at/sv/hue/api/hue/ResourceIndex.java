@@ -0,0 +1,50 @@
+package at.sv.hue.api.hue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A lookup table derived from cached resource maps, to avoid scanning all resources on every lookup.
+ * <p>
+ * The table is built lazily on first use. It is rebuilt on the next lookup once one of its source maps has been
+ * replaced, i.e., the cache was refreshed or invalidated, or after {@link #markStale()} has been called because the
+ * cached resources have been modified in place.
+ */
+final class ResourceIndex<T> {
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot<T> snapshot;
+
+    /**
+     * @param builder builds the table from the given sources, if the current one can't be reused
+     * @param sources the current source maps the table is derived from, compared by identity
+     */
+    T get(Supplier<T> builder, Object... sources) {
+        long currentVersion = version.get();
+        Snapshot<T> current = snapshot;
+        if (current != null && current.version == currentVersion && current.isBuiltFrom(sources)) {
+            return current.table;
+        }
+        T table = builder.get();
+        snapshot = new Snapshot<>(sources, currentVersion, table);
+        return table;
+    }
+
+    void markStale() {
+        version.incrementAndGet();
+    }
+
+    private record Snapshot<T>(Object[] sources, long version, T table) {
+        boolean isBuiltFrom(Object[] otherSources) {
+            if (sources.length != otherSources.length) {
+                return false;
+            }
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] != otherSources[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package at.sv.hue.api.hue;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs scene updates per group: updates of different groups run in parallel, updates of the same group one after
+ * another. Each update waits for the debounce delay before it starts. An update requested for a group that still has
+ * one waiting replaces the waiting one, so that only the latest scene of a group is written. All replaced callers
+ * share the result of the update that is finally run.
+ * <p>
+ * An update is complete once the future returned by its task completes, e.g., after a delayed scene recall.
+ */
+@Slf4j
+final class ScenePipeline {
+
+    private final Executor delayedExecutor;
+    private final Map<String, GroupQueue> groups = new HashMap<>();
+
+    ScenePipeline(long debounceInMs) {
+        delayedExecutor = CompletableFuture.delayedExecutor(debounceInMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param groupId the group the scene belongs to
+     * @param task    starts the update, run on the given executor
+     * @return completes once the given update, or the one that replaced it, is complete
+     */
+    CompletableFuture<Void> submit(String groupId, Executor executor, Supplier<CompletableFuture<Void>> task) {
+        synchronized (groups) {
+            GroupQueue queue = groups.computeIfAbsent(groupId, _ -> new GroupQueue());
+            if (queue.waiting != null) {
+                log.trace("Replaced waiting scene update for {}", groupId);
+                queue.waiting.task = task;
+                queue.waiting.executor = executor;
+                return queue.waiting.result;
+            }
+            WaitingUpdate update = new WaitingUpdate(task, executor);
+            queue.waiting = update;
+            queue.activeUpdates++;
+            queue.tail = queue.tail.handle((_, _) -> null)
+                                   .thenComposeAsync(_ -> run(groupId, queue, update), delayedExecutor);
+            return update.result;
+        }
+    }
+
+    private CompletableFuture<Void> run(String groupId, GroupQueue queue, WaitingUpdate update) {
+        synchronized (groups) {
+            queue.waiting = null;
+        }
+        CompletableFuture<Void> completed;
+        try {
+            completed = CompletableFuture.supplyAsync(update.task, update.executor)
+                                         .thenCompose(result -> result);
+        } catch (RuntimeException e) {
+            completed = CompletableFuture.failedFuture(e);
+        }
+        return completed.whenComplete((_, e) -> {
+            finished(groupId, queue);
+            if (e != null) {
+                log.trace("Scene update for {} failed: {}", groupId, e.getLocalizedMessage());
+                update.result.completeExceptionally(e);
+            } else {
+                update.result.complete(null);
+            }
+        });
+    }
+
+    private void finished(String groupId, GroupQueue queue) {
+        synchronized (groups) {
+            queue.activeUpdates--;
+            if (queue.activeUpdates == 0) {
+                groups.remove(groupId);
+            }
+        }
+    }
+
+    /**
+     * @return the number of groups with a running or waiting update
+     */
+    int getActiveGroupCount() {
+        synchronized (groups) {
+            return groups.size();
+        }
+    }
+
+    private static final class GroupQueue {
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private WaitingUpdate waiting;
+        private int activeUpdates;
+    }
+
+    private static final class WaitingUpdate {
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private Supplier<CompletableFuture<Void>> task;
+        private Executor executor;
+
+        private WaitingUpdate(Supplier<CompletableFuture<Void>> task, Executor executor) {
+            this.task = task;
+            this.executor = executor;
+        }
+    }
+}
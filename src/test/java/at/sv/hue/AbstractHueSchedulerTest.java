@@ -64,6 +64,7 @@ public class AbstractHueSchedulerTest {
     protected String nowTimeString;
     protected StartTimeProviderImpl startTimeProvider;
     protected boolean controlGroupLightsIndividually;
+    protected boolean parallelIndividualLightUpdates;
     protected HueApi mockedHueApi;
     protected String defaultInterpolationTransitionTimeInMs;
     protected int minTrGap = 0; // in minutes
@@ -105,6 +106,7 @@ public class AbstractHueSchedulerTest {
                                                .maxGradientPoints(5)
                                                .capabilities(EnumSet.allOf(Capability.class)).build();
         controlGroupLightsIndividually = false;
+        parallelIndividualLightUpdates = false;
         disableUserModificationTracking = true;
         requireSceneActivation = false;
         defaultInterpolationTransitionTimeInMs = null;
@@ -156,7 +158,7 @@ public class AbstractHueSchedulerTest {
 
     protected void create() {
         scheduler = new HueScheduler(mockedHueApi, stateScheduler, startTimeProvider,
-                () -> now, 10.0, controlGroupLightsIndividually, disableUserModificationTracking,
+                () -> now, 10.0, controlGroupLightsIndividually, parallelIndividualLightUpdates, disableUserModificationTracking,
                 requireSceneActivation, defaultInterpolationTransitionTimeInMs, 0, connectionFailureRetryDelay,
                 minTrGap, BRIGHTNESS_OVERRIDE_THRESHOLD_PERCENT, COLOR_TEMPERATURE_OVERRIDE_THRESHOLD_KELVIN,
                 COLOR_OVERRIDE_THRESHOLD, 3.8, 150, 0.06,
@@ -349,6 +351,17 @@ public class AbstractHueSchedulerTest {
         assertAllPutCallsAsserted();
     }
 
+    /**
+     * For put calls performed in parallel, which don't have a defined order.
+     */
+    protected void assertPutCallsInAnyOrder(PutCall.PutCallBuilder... putCallBuilders) {
+        for (PutCall.PutCallBuilder putCallBuilder : putCallBuilders) {
+            expectedPutCalls++;
+            verify(mockedHueApi).putState(putCallBuilder.build());
+        }
+        assertAllPutCallsAsserted();
+    }
+
     private void assertPutCall(PutCall putCall) {
         expectedPutCalls++;
         orderVerifier.verify(mockedHueApi, calls(1)).putState(putCall);
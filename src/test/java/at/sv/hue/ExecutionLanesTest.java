@@ -0,0 +1,93 @@
+package at.sv.hue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutionLanesTest {
+
+    private ExecutorService executor;
+    private ExecutionLanes lanes;
+    private List<String> executed;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        lanes = new ExecutionLanes(executor);
+        executed = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sameLane_runsOneAfterAnother_inOrderOfSubmission() throws InterruptedException {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+
+        lanes.submit("/lights/1", () -> {
+            firstStarted.countDown();
+            await(releaseFirst);
+            executed.add("first");
+        });
+        lanes.submit("/lights/1", () -> executed.add("second"));
+        lanes.submit("/lights/1", done::countDown);
+
+        assertThat(firstStarted.await(1, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(executed).isEmpty();
+
+        releaseFirst.countDown();
+
+        assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(executed).containsExactly("first", "second");
+    }
+
+    @Test
+    void differentLanes_runInParallel() throws InterruptedException {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondDone = new CountDownLatch(1);
+
+        lanes.submit("/lights/1", () -> await(releaseFirst));
+        lanes.submit("/lights/2", secondDone::countDown);
+
+        assertThat(secondDone.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(lanes.getActiveLaneCount()).isOne();
+
+        releaseFirst.countDown();
+    }
+
+    @Test
+    void failingTask_doesNotBlockLane_laneRemovedOnceEmpty() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+
+        lanes.submit("/lights/1", () -> {
+            throw new IllegalStateException("Failed");
+        });
+        lanes.submit("/lights/1", done::countDown);
+
+        assertThat(done.await(1, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(lanes.getActiveLaneCount()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
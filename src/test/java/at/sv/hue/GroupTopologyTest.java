@@ -0,0 +1,70 @@
+package at.sv.hue;
+
+import at.sv.hue.api.ApiFailure;
+import at.sv.hue.api.GroupInfo;
+import at.sv.hue.api.HueApi;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class GroupTopologyTest {
+
+    private HueApi api;
+    private GroupTopology topology;
+
+    @BeforeEach
+    void setUp() {
+        api = mock(HueApi.class);
+        topology = new GroupTopology(api);
+    }
+
+    @Test
+    void getAssignedGroupsSortedBySizeDesc_largerGroupsFirst_distinct() {
+        when(api.getAssignedGroups("/lights/1")).thenReturn(List.of("/groups/1", "/groups/2"));
+        when(api.getAssignedGroups("/lights/2")).thenReturn(List.of("/groups/2"));
+        when(api.getGroupLights("/groups/1")).thenReturn(List.of("/lights/1"));
+        when(api.getGroupLights("/groups/2")).thenReturn(List.of("/lights/1", "/lights/2"));
+
+        assertThat(topology.getAssignedGroupsSortedBySizeDesc(List.of("/lights/1", "/lights/2"))).containsExactly(
+                new GroupInfo("/groups/2", List.of("/lights/1", "/lights/2")),
+                new GroupInfo("/groups/1", List.of("/lights/1"))
+        );
+    }
+
+    @Test
+    void lookups_areOnlyPerformedOnce() {
+        when(api.getAssignedGroups("/lights/1")).thenReturn(List.of("/groups/1"));
+        when(api.getGroupLights("/groups/1")).thenReturn(List.of("/lights/1", "/lights/2"));
+
+        topology.getAssignedGroupsSortedBySizeDesc(List.of("/lights/1"));
+        topology.getAssignedGroupsSortedBySizeDesc(List.of("/lights/1"));
+        topology.getGroupLights("/groups/1");
+        topology.getOverlappingLights("/groups/1", List.of("/lights/2", "/lights/3"));
+
+        verify(api, times(1)).getAssignedGroups("/lights/1");
+        verify(api, times(1)).getGroupLights("/groups/1");
+    }
+
+    @Test
+    void getOverlappingLights_keepsOrderOfGivenLights() {
+        when(api.getGroupLights("/groups/1")).thenReturn(List.of("/lights/1", "/lights/2", "/lights/3"));
+
+        assertThat(topology.getOverlappingLights("/groups/1", List.of("/lights/3", "/lights/4", "/lights/1")))
+                .containsExactly("/lights/3", "/lights/1");
+        assertThat(topology.getOverlappingLights("/groups/1", List.of("/lights/4"))).isEmpty();
+    }
+
+    @Test
+    void failedLookup_isNotRemembered() {
+        when(api.getGroupLights("/groups/1")).thenThrow(new ApiFailure("Failed"))
+                                             .thenReturn(List.of("/lights/1"));
+
+        assertThatThrownBy(() -> topology.getGroupLights("/groups/1")).isInstanceOf(ApiFailure.class);
+        assertThat(topology.getGroupLights("/groups/1")).containsExactly("/lights/1");
+    }
+}
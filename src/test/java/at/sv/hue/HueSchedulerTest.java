@@ -5066,6 +5066,75 @@ class HueSchedulerTest extends AbstractHueSchedulerTest {
         ensureRunnable(now.plusDays(1));
     }
 
+    @Test
+    void run_execution_groupState_controlIndividually_parallelFlagSet_multipleSinglePutCalls() {
+        controlGroupLightsIndividually = true;
+        parallelIndividualLightUpdates = true;
+        create();
+        addDefaultGroupState(10, now, 1, 2, 3);
+
+        ScheduledRunnable scheduledRunnable = startAndGetSingleRunnable();
+
+        setLightStateResponse(1, true, null);
+        setCurrentTimeToAndRun(scheduledRunnable);
+
+        assertPutCallsInAnyOrder(
+                defaultPutCall().id("/lights/1"),
+                defaultPutCall().id("/lights/2"),
+                defaultPutCall().id("/lights/3")
+        );
+
+        ensureRunnable(now.plusDays(1));
+    }
+
+    @Test
+    void run_execution_groupState_controlIndividually_parallelFlagSet_containedGroupWithSameState_usesGroupUpdate() {
+        controlGroupLightsIndividually = true;
+        parallelIndividualLightUpdates = true;
+        create();
+        mockGroupLightsForId(21, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        addDefaultGroupState(20, now, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        for (int lightId = 1; lightId <= 10; lightId++) {
+            mockAssignedGroups(lightId, 20, 21);
+        }
+
+        ScheduledRunnable scheduledRunnable = startAndGetSingleRunnable();
+
+        setCurrentTimeToAndRun(scheduledRunnable);
+
+        assertGroupPutCalls(
+                expectedGroupPutCall(21).bri(DEFAULT_BRIGHTNESS).ct(DEFAULT_CT)
+        );
+        assertPutCallsInAnyOrder(
+                defaultPutCall().id("/lights/11")
+        );
+
+        ensureRunnable(now.plusDays(1));
+    }
+
+    @Test
+    void run_execution_groupState_controlIndividually_parallelFlagSet_containedGroupSmallerThanGroupPermits_usesLightUpdates() {
+        controlGroupLightsIndividually = true;
+        parallelIndividualLightUpdates = true;
+        create();
+        mockGroupLightsForId(11, 1, 2);
+        addDefaultGroupState(10, now, 1, 2, 3);
+        mockAssignedGroups(1, 10, 11);
+        mockAssignedGroups(2, 10, 11);
+
+        ScheduledRunnable scheduledRunnable = startAndGetSingleRunnable();
+
+        setCurrentTimeToAndRun(scheduledRunnable);
+
+        assertPutCallsInAnyOrder(
+                defaultPutCall().id("/lights/1"),
+                defaultPutCall().id("/lights/2"),
+                defaultPutCall().id("/lights/3")
+        );
+
+        ensureRunnable(now.plusDays(1));
+    }
+
     @Test
     void run_execution_twoStates_overNight_detectsEndCorrectlyAndDoesNotExecuteConfirmRunnable() {
         setCurrentAndInitialTimeTo(now.withHour(23).withMinute(0));
@@ -0,0 +1,109 @@
+package at.sv.hue;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InterpolationKernelTest {
+
+    @Test
+    void interpolateInteger_roundsHalfUp() {
+        InterpolationKernel kernel = new InterpolationKernel(1, 2); // t = 0.5
+
+        assertThat(kernel.interpolateInteger(10, 11)).isEqualTo(11); // 10.5
+        assertThat(kernel.interpolateInteger(11, 10)).isEqualTo(11); // 10.5
+        assertThat(kernel.interpolateInteger(10, 20)).isEqualTo(15);
+    }
+
+    @Test
+    void interpolateInteger_negativeTime_roundsAwayFromZero() {
+        InterpolationKernel kernel = new InterpolationKernel(-1, 2); // t = -0.5
+
+        assertThat(kernel.interpolateInteger(0, 1)).isEqualTo(-1); // -0.5
+        assertThat(kernel.interpolateInteger(0, 3)).isEqualTo(-2); // -1.5
+    }
+
+    @Test
+    void interpolateInteger_missingValues() {
+        InterpolationKernel kernel = new InterpolationKernel(1, 2);
+
+        assertThat(kernel.interpolateInteger(10, InterpolationKernel.NONE)).isEqualTo(10);
+        assertThat(kernel.interpolateInteger(InterpolationKernel.NONE, 10)).isEqualTo(InterpolationKernel.NONE);
+    }
+
+    @Test
+    void interpolateIntegers_interpolatesAllSlotsInPlace() {
+        InterpolationKernel kernel = new InterpolationKernel(1, 4); // t = 0.25
+        int[] previous = {0, 100, InterpolationKernel.NONE, 50};
+        int[] target = {100, 0, 10, InterpolationKernel.NONE};
+
+        kernel.interpolateIntegers(previous, target);
+
+        assertThat(previous).containsExactly(25, 75, InterpolationKernel.NONE, 50);
+    }
+
+    @Test
+    void interpolateDoubles_skipsMissingSlots() {
+        InterpolationKernel kernel = new InterpolationKernel(1, 4); // t = 0.25
+        double[] previous = {0.2, Double.NaN, 0.3};
+        double[] target = {0.6, 0.5, Double.NaN};
+
+        kernel.interpolateDoubles(previous, target);
+
+        assertThat(previous).containsExactly(0.3, Double.NaN, 0.3);
+    }
+
+    @Test
+    void interpolateDouble_closeToRoundingBoundary_sameAsBigDecimalArithmetic() {
+        InterpolationKernel kernel = new InterpolationKernel(1, 2); // t = 0.5
+        BigDecimal time = new BigDecimal("0.5000000");
+
+        // the differences are not exactly 0.00001 as doubles, so the results are just below or above the boundary
+        assertThat(kernel.interpolateDouble(0.12345, 0.12346))
+                .isEqualTo(interpolateWithBigDecimal(time, 0.12345, 0.12346, 5).doubleValue())
+                .isEqualTo(0.12345);
+        assertThat(kernel.interpolateDouble(0.12346, 0.12345))
+                .isEqualTo(interpolateWithBigDecimal(time, 0.12346, 0.12345, 5).doubleValue())
+                .isEqualTo(0.12346);
+        assertThat(kernel.interpolateDouble(0.5, 0.50001))
+                .isEqualTo(interpolateWithBigDecimal(time, 0.5, 0.50001, 5).doubleValue());
+    }
+
+    @Test
+    void sameResultAsBigDecimalArithmetic() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long total = 1 + random.nextInt(20_000_000);
+            long elapsed = random.nextLong(-total / 3, total + 1);
+            InterpolationKernel kernel = new InterpolationKernel(elapsed, total);
+            BigDecimal time = BigDecimal.valueOf(elapsed).divide(BigDecimal.valueOf(total), 7, RoundingMode.HALF_UP);
+
+            int previous = random.nextInt(500);
+            int target = random.nextInt(500);
+            assertThat(kernel.interpolateInteger(previous, target))
+                    .isEqualTo(interpolateWithBigDecimal(time, previous, target, 0).intValue());
+
+            double previousXY = roundRandomly(random, random.nextDouble());
+            double targetXY = roundRandomly(random, random.nextDouble());
+            assertThat(kernel.interpolateDouble(previousXY, targetXY))
+                    .isEqualTo(interpolateWithBigDecimal(time, previousXY, targetXY, 5).doubleValue());
+        }
+    }
+
+    private static double roundRandomly(Random random, double value) {
+        if (random.nextBoolean()) {
+            return Math.round(value * 10_000) / 10_000.0; // typical four decimal xy values
+        }
+        return value;
+    }
+
+    private static BigDecimal interpolateWithBigDecimal(BigDecimal time, double previous, double target, int scale) {
+        return BigDecimal.valueOf(previous)
+                         .add(time.multiply(BigDecimal.valueOf(target - previous)))
+                         .setScale(scale, RoundingMode.HALF_UP);
+    }
+}
@@ -4,11 +4,18 @@ import at.sv.hue.api.Capability;
 import at.sv.hue.api.Identifier;
 import at.sv.hue.api.LightCapabilities;
 import at.sv.hue.api.LightState;
+import at.sv.hue.api.PutCall;
+import at.sv.hue.time.StartTimeProvider;
+import at.sv.hue.time.StartTimeProviderImpl;
+import at.sv.hue.time.SunTimesProviderImpl;
 import org.junit.jupiter.api.Test;
 
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.function.BiFunction;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -928,6 +935,102 @@ class ScheduledStateTest {
         assertLightStateDiffers(scheduledState, lightState, true);
     }
 
+    @Test
+    void getNextSignificantPropertyChangeTime_brightness_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScan(List.of(state().id("ID").bri(10)), List.of(state().id("ID").bri(254)),
+                "06:00", "08:10:30", null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_ct_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScan(List.of(state().id("ID").bri(100).ct(153)),
+                List.of(state().id("ID").bri(120).ct(454)), "06:00", "07:45", null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_xy_gamutClipped_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScan(List.of(state().id("ID").bri(64).x(0.2788).y(0.0432).gamut(GAMUT_A)),
+                List.of(state().id("ID").bri(93).x(0.784).y(0.4938).gamut(GAMUT_A)), "06:00", "10:36:11", null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_xyToGradient_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScan(List.of(state().id("ID").bri(84).x(0.095).y(0.5897).gamut(GAMUT_C)),
+                List.of(state().id("ID").bri(21).gradient(gradient(0.6706, 0.008, 0.6961, 0.0332)).gamut(GAMUT_C)),
+                "06:00", "07:02:08", null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_ctToXy_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScan(List.of(state().id("ID").bri(100).ct(454).gamut(GAMUT_C)),
+                List.of(state().id("ID").bri(100).x(0.16).y(0.05).gamut(GAMUT_C)), "06:00", "07:30", null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_gradient_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScan(
+                List.of(state().id("ID").bri(245).gradient(gradient(0.2865, 0.0784, 0.4829, 0.5178)).gamut(GAMUT_C)),
+                List.of(state().id("ID").bri(130).gradient(gradient(0.5341, 0.0142, 0.0003, 0.3975)).gamut(GAMUT_C)),
+                "06:00", "15:02:42", null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_multipleLights_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScan(
+                List.of(state().id("1").bri(10).ct(153), state().id("2").bri(254).x(0.6).y(0.3).gamut(GAMUT_C)),
+                List.of(state().id("1").bri(200).ct(300), state().id("2").bri(20).x(0.2).y(0.2).gamut(GAMUT_C)),
+                "06:00", "07:40", null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_group_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScan(List.of(state().id("ID").bri(40).ct(153)),
+                List.of(state().id("ID").bri(220).ct(400)), "06:00", "07:50", null, List.of("1", "2", "3"));
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_group_suppliedCurrentPutCalls_sameAsLinearScan() {
+        PutCalls current = new PutCalls("ID", List.of(PutCall.builder().id("ID").bri(230).build()), null, true);
+
+        assertNextChangeTimesMatchLinearScan(List.of(state().id("ID").bri(81)), List.of(state().id("ID").bri(223)),
+                "06:00", "08:25:23", current, List.of("1", "2"));
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_suppliedCurrentPutCalls_notOnPath_sameAsLinearScan() {
+        PutCalls current = new PutCalls("ID", List.of(PutCall.builder().id("ID").bri(230).build()), null, false);
+
+        assertNextChangeTimesMatchLinearScan(List.of(state().id("ID").bri(81)), List.of(state().id("ID").bri(223)),
+                "06:00", "08:25:23", current);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_brightness_currentFromBackgroundInterpolation_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScanWithLookup(List.of(state().id("ID").bri(10)), List.of(state().id("ID").bri(254)),
+                "06:00", "08:10:30", ScheduledStateTest::getBackgroundInterpolationPutCalls, null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_ct_currentFromBackgroundInterpolation_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScanWithLookup(List.of(state().id("ID").bri(100).ct(153)),
+                List.of(state().id("ID").bri(120).ct(454)), "06:00", "07:45",
+                ScheduledStateTest::getBackgroundInterpolationPutCalls, null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_xy_currentFromBackgroundInterpolation_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScanWithLookup(List.of(state().id("ID").bri(64).x(0.2788).y(0.0432).gamut(GAMUT_A)),
+                List.of(state().id("ID").bri(93).x(0.784).y(0.4938).gamut(GAMUT_A)), "06:00", "10:36:11",
+                ScheduledStateTest::getBackgroundInterpolationPutCalls, null);
+    }
+
+    @Test
+    void getNextSignificantPropertyChangeTime_group_currentFromBackgroundInterpolation_sameAsLinearScan() {
+        assertNextChangeTimesMatchLinearScanWithLookup(List.of(state().id("ID").bri(40).ct(153)),
+                List.of(state().id("ID").bri(220).ct(400)), "06:00", "07:50",
+                ScheduledStateTest::getBackgroundInterpolationPutCalls, List.of("1", "2", "3"));
+    }
+
     private ScheduledState scheduledState(ScheduledLightState.ScheduledLightStateBuilder lightState) {
         return ScheduledState.builder()
                              .identifier(new Identifier("ID", "name"))
@@ -938,6 +1041,98 @@ class ScheduledStateTest {
                              .build();
     }
 
+    /**
+     * Compares the next change time for every minute of the transition with the minute-by-minute scan.
+     */
+    private static void assertNextChangeTimesMatchLinearScan(List<ScheduledLightState.ScheduledLightStateBuilder> previousStates,
+                                                             List<ScheduledLightState.ScheduledLightStateBuilder> targetStates,
+                                                             String previousStart, String targetStart,
+                                                             PutCalls currentPutCalls) {
+        assertNextChangeTimesMatchLinearScan(previousStates, targetStates, previousStart, targetStart, currentPutCalls, null);
+    }
+
+    /**
+     * @param groupLightIds the lights of the group, or null if the states are not group states
+     */
+    private static void assertNextChangeTimesMatchLinearScan(List<ScheduledLightState.ScheduledLightStateBuilder> previousStates,
+                                                             List<ScheduledLightState.ScheduledLightStateBuilder> targetStates,
+                                                             String previousStart, String targetStart,
+                                                             PutCalls currentPutCalls, List<String> groupLightIds) {
+        assertNextChangeTimesMatchLinearScanWithLookup(previousStates, targetStates, previousStart, targetStart,
+                (_, _) -> currentPutCalls, groupLightIds);
+    }
+
+    /**
+     * @param currentPutCallsLookup the current put calls for the snapshot at the given time, or null for the interpolated state
+     * @param groupLightIds         the lights of the group, or null if the states are not group states
+     */
+    private static void assertNextChangeTimesMatchLinearScanWithLookup(List<ScheduledLightState.ScheduledLightStateBuilder> previousStates,
+                                                                       List<ScheduledLightState.ScheduledLightStateBuilder> targetStates,
+                                                                       String previousStart, String targetStart,
+                                                                       BiFunction<ScheduledStateSnapshot, ZonedDateTime, PutCalls> currentPutCallsLookup,
+                                                                       List<String> groupLightIds) {
+        StartTimeProvider startTimeProvider = new StartTimeProviderImpl(new SunTimesProviderImpl(48.20, 16.39, 165));
+        ScheduledState previous = transitionState(previousStates, previousStart, startTimeProvider, false, groupLightIds);
+        ScheduledState target = transitionState(targetStates, targetStart, startTimeProvider, true, groupLightIds);
+        ZonedDateTime day = ZonedDateTime.of(2026, 1, 5, 6, 0, 0, 0, ZoneId.of("Europe/Vienna"));
+        target.setPreviousStateLookup(_ -> previous.getSnapshot(day));
+        ScheduledStateSnapshot snapshot = target.getSnapshot(day);
+
+        for (ZonedDateTime now = snapshot.getStart().plusSeconds(17); now.isBefore(snapshot.getDefinedStart());
+             now = now.plusMinutes(1)) {
+            PutCalls currentPutCalls = currentPutCallsLookup.apply(snapshot, now);
+            assertThat(snapshot.getNextSignificantPropertyChangeTime(currentPutCalls, now, BRIGHTNESS_THRESHOLD,
+                    COLOR_TEMPERATURE_THRESHOLD_KELVIN, COLOR_THRESHOLD))
+                    .as("next change time at %s", now)
+                    .isEqualTo(getNextChangeTimeByLinearScan(snapshot, currentPutCalls, now));
+        }
+    }
+
+    private static ScheduledState transitionState(List<ScheduledLightState.ScheduledLightStateBuilder> lightStates,
+                                                  String start, StartTimeProvider startTimeProvider, boolean interpolate,
+                                                  List<String> groupLightIds) {
+        return ScheduledState.builder()
+                             .identifier(new Identifier("ID", "name"))
+                             .groupState(groupLightIds != null)
+                             .groupLightIds(groupLightIds)
+                             .startString(start)
+                             .lightStates(lightStates.stream().map(ScheduledLightState.ScheduledLightStateBuilder::build).toList())
+                             .startTimeProvider(startTimeProvider)
+                             .interpolate(interpolate)
+                             .brightnessOverrideThreshold(BRIGHTNESS_THRESHOLD)
+                             .colorTemperatureOverrideThresholdKelvin(COLOR_TEMPERATURE_THRESHOLD_KELVIN)
+                             .colorOverrideThreshold(COLOR_THRESHOLD)
+                             .build();
+    }
+
+    private static ZonedDateTime getNextChangeTimeByLinearScan(ScheduledStateSnapshot snapshot, PutCalls currentPutCalls,
+                                                               ZonedDateTime now) {
+        PutCalls current = currentPutCalls != null ? currentPutCalls : snapshot.getInterpolatedFullPicturePutCalls(now);
+        ZonedDateTime nextTime = now.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        while (nextTime.isBefore(snapshot.getDefinedStart())) {
+            PutCalls future = new StateInterpolator(snapshot, snapshot.getPreviousState(), nextTime).getInterpolatedPutCalls();
+            if (future != null && current.hasNotSimilarLightState(future, BRIGHTNESS_THRESHOLD,
+                    COLOR_TEMPERATURE_THRESHOLD_KELVIN, COLOR_THRESHOLD)) {
+                return nextTime;
+            }
+            nextTime = nextTime.plusMinutes(1);
+        }
+        return snapshot.getDefinedStart();
+    }
+
+    /**
+     * The put calls the background interpolation passes on as the current state, which don't turn the lights on.
+     */
+    private static PutCalls getBackgroundInterpolationPutCalls(ScheduledStateSnapshot snapshot, ZonedDateTime now) {
+        PutCalls putCalls = snapshot.getInterpolatedFullPicturePutCalls(now);
+        putCalls.resetOn();
+        return putCalls;
+    }
+
+    private static Gradient gradient(double x1, double y1, double x2, double y2) {
+        return new Gradient(List.of(Pair.of(x1, y1), Pair.of(x2, y2)), null);
+    }
+
     private static ScheduledLightState.ScheduledLightStateBuilder state() {
         return ScheduledLightState.builder();
     }
@@ -0,0 +1,127 @@
+package at.sv.hue;
+
+import at.sv.hue.api.Identifier;
+import at.sv.hue.api.ManualOverrideTracker;
+import at.sv.hue.api.ManualOverrideTrackerImpl;
+import at.sv.hue.api.PutCall;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateJournalTest {
+
+    @TempDir
+    Path tempDir;
+    private Path file;
+    private ZonedDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("journal.jsonl");
+        now = ZonedDateTime.of(2024, 1, 1, 10, 0, 0, 0, ZoneId.of("Europe/Vienna"));
+    }
+
+    @Test
+    void replay_restoresManualOverrideFlags() {
+        StateJournal recording = new StateJournal(file, () -> now);
+        ManualOverrideTracker tracker = recording.track(new ManualOverrideTrackerImpl());
+        tracker.onManuallyOverridden("/lights/1");
+        tracker.onLightTurnedOnBySyncedScene("/groups/2");
+        tracker.onManuallyOverridden("/lights/3");
+        tracker.onLightTurnedOn("/lights/3");
+        recording.flush();
+
+        ManualOverrideTrackerImpl restored = new ManualOverrideTrackerImpl();
+        StateJournal journal = new StateJournal(file, () -> now);
+        journal.track(restored);
+        journal.replay(List.of());
+
+        assertThat(restored.isManuallyOverridden("/lights/1")).isTrue();
+        assertThat(restored.wasTurnedOnBySyncedScene("/groups/2")).isTrue();
+        assertThat(restored.isManuallyOverridden("/lights/3")).isFalse();
+    }
+
+    @Test
+    void replay_restoresLastSeenAndPutCalls_ofMatchingState() {
+        ScheduledState state = scheduledState("/lights/1", "10:00");
+        state.setLastPutCalls(new PutCalls("/lights/1", List.of(PutCall.builder().id("/lights/1").bri(100).ct(300).build()),
+                5, false));
+        state.setLastSeen(now.minusHours(1));
+        StateJournal recording = new StateJournal(file, () -> now);
+        recording.recordLastSeen(state);
+        recording.flush();
+
+        ScheduledState restoredState = scheduledState("/lights/1", "10:00");
+        ScheduledState otherState = scheduledState("/lights/1", "12:00");
+        new StateJournal(file, () -> now).replay(List.of(restoredState, otherState));
+
+        assertThat(restoredState.getLastSeen()).isEqualTo(now.minusHours(1));
+        assertThat(restoredState.getLastPutCalls().getFirst())
+                .isEqualTo(PutCall.builder().id("/lights/1").bri(100).ct(300).transitionTime(5).build());
+        assertThat(otherState.getLastSeen()).isNull();
+    }
+
+    @Test
+    void replay_ignoresOutdatedEntries() {
+        StateJournal recording = new StateJournal(file, () -> now.minus(StateJournal.MAX_REPLAY_AGE).minusMinutes(1));
+        ManualOverrideTracker tracker = recording.track(new ManualOverrideTrackerImpl());
+        tracker.onManuallyOverridden("/lights/1");
+        recording.flush();
+
+        ManualOverrideTrackerImpl restored = new ManualOverrideTrackerImpl();
+        StateJournal journal = new StateJournal(file, () -> now);
+        journal.track(restored);
+        journal.replay(List.of());
+
+        assertThat(restored.isManuallyOverridden("/lights/1")).isFalse();
+    }
+
+    @Test
+    void load_compactsToLatestEntryPerKey_skipsInvalidLines() throws IOException {
+        StateJournal recording = new StateJournal(file, () -> now);
+        ManualOverrideTracker tracker = recording.track(new ManualOverrideTrackerImpl());
+        tracker.onManuallyOverridden("/lights/1");
+        tracker.onLightTurnedOn("/lights/1");
+        tracker.onManuallyOverridden("/lights/1");
+        recording.flush();
+        assertThat(recording.getLineCount()).isEqualTo(3);
+        Files.writeString(file, "{invalid", StandardOpenOption.APPEND);
+
+        StateJournal journal = new StateJournal(file, () -> now);
+
+        assertThat(journal.getLineCount()).isOne();
+        assertThat(Files.readAllLines(file)).hasSize(1);
+    }
+
+    @Test
+    void track_flagsUnchanged_noEntryAppended() {
+        StateJournal journal = new StateJournal(file, () -> now);
+        ManualOverrideTracker tracker = journal.track(new ManualOverrideTrackerImpl());
+        tracker.onLightOff("/lights/1");
+        tracker.onLightTurnedOn("/lights/1");
+        tracker.onManuallyOverridden("/lights/2");
+        tracker.onManuallyOverridden("/lights/2");
+        tracker.onLightOff("/lights/2");
+        journal.flush();
+
+        assertThat(journal.getLineCount()).isOne();
+    }
+
+    private static ScheduledState scheduledState(String id, String start) {
+        return ScheduledState.builder()
+                             .identifier(new Identifier(id, "name"))
+                             .startString(start)
+                             .lightStates(List.of(ScheduledLightState.builder().bri(100).build()))
+                             .build();
+    }
+}
@@ -0,0 +1,60 @@
+package at.sv.hue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelStateSchedulerTest {
+
+    private ZonedDateTime now;
+    private AtomicLong clock;
+    private TimingWheelStateScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        now = ZonedDateTime.of(2024, 1, 1, 10, 0, 0, 0, ZoneId.of("Europe/Vienna"));
+        clock = new AtomicLong(1_000);
+        scheduler = new TimingWheelStateScheduler(() -> now, clock::get);
+    }
+
+    @Test
+    void schedule_sameKey_replacesPendingTask() {
+        scheduler.schedule("key", () -> {}, now.plusMinutes(5), null);
+        scheduler.schedule("key", () -> {}, now.plusMinutes(10), null);
+
+        assertThat(scheduler.getQueueDepth()).isOne();
+        assertThat(scheduler.getSupersededTaskCount()).isOne();
+    }
+
+    @Test
+    void schedule_differentKeysOrNoKey_keepsAllTasks() {
+        scheduler.schedule("key1", () -> {}, now.plusMinutes(5), null);
+        scheduler.schedule("key2", () -> {}, now.plusMinutes(5), null);
+        scheduler.schedule(() -> {}, now.plusMinutes(5), null);
+        scheduler.schedule(() -> {}, now.plusMinutes(5), null);
+
+        assertThat(scheduler.getQueueDepth()).isEqualTo(4);
+        assertThat(scheduler.getSupersededTaskCount()).isZero();
+    }
+
+    @Test
+    void runExpiredTasks_removesExpiredTasks_keyCanBeScheduledAgain() {
+        scheduler.schedule("key", () -> {}, now.plusSeconds(1), null);
+        scheduler.schedule("key2", () -> {}, now.plusMinutes(1), null);
+
+        clock.addAndGet(1_000);
+        scheduler.runExpiredTasks();
+
+        assertThat(scheduler.getQueueDepth()).isOne();
+
+        scheduler.schedule("key", () -> {}, now.plusSeconds(2), null);
+
+        assertThat(scheduler.getQueueDepth()).isEqualTo(2);
+        assertThat(scheduler.getSupersededTaskCount()).isZero();
+    }
+}
@@ -0,0 +1,92 @@
+package at.sv.hue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private TimingWheel wheel;
+    private List<String> executed;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel(10, 8, 1000);
+        executed = new ArrayList<>();
+    }
+
+    @Test
+    void add_alreadyExpired_returnsNull() {
+        assertThat(wheel.add(1005, task("expired"))).isNull();
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.getNextExpiration()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void advanceTo_runsOnlyExpiredTasks_inOrderOfBuckets() {
+        wheel.add(1050, task("second"));
+        wheel.add(1020, task("first"));
+        wheel.add(1200, task("third"));
+
+        assertThat(wheel.getNextExpiration()).isEqualTo(1020);
+
+        wheel.advanceTo(1019, this::run);
+        assertThat(executed).isEmpty();
+
+        wheel.advanceTo(1050, this::run);
+        assertThat(executed).containsExactly("first", "second");
+        assertThat(wheel.size()).isOne();
+    }
+
+    @Test
+    void advanceTo_farInTheFuture_movesTasksDownFromOverflowWheels() {
+        wheel.add(1000 + 10 * 8 * 8 * 3 + 15, task("far"));
+        wheel.add(1000 + 10 * 8 + 5, task("near"));
+
+        wheel.advanceTo(1000 + 10 * 8 * 8 * 3, this::run);
+        assertThat(executed).containsExactly("near");
+
+        wheel.advanceTo(1000 + 10 * 8 * 8 * 3 + 9, this::run);
+        assertThat(executed).containsExactly("near");
+
+        wheel.advanceTo(1000 + 10 * 8 * 8 * 3 + 10, this::run);
+        assertThat(executed).containsExactly("near", "far");
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.getNextExpiration()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void cancel_removesPendingTask_onlyOnce() {
+        TimingWheel.Entry entry = wheel.add(1030, task("cancelled"));
+        wheel.add(1030, task("kept"));
+
+        assertThat(wheel.cancel(entry)).isTrue();
+        assertThat(wheel.cancel(entry)).isFalse();
+        assertThat(wheel.size()).isOne();
+
+        wheel.advanceTo(2000, this::run);
+        assertThat(executed).containsExactly("kept");
+    }
+
+    @Test
+    void cancel_alreadyExecuted_returnsFalse() {
+        TimingWheel.Entry entry = wheel.add(1030, task("executed"));
+
+        wheel.advanceTo(1030, this::run);
+
+        assertThat(wheel.cancel(entry)).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    private Runnable task(String name) {
+        return () -> executed.add(name);
+    }
+
+    private void run(Runnable runnable) {
+        runnable.run();
+    }
+}
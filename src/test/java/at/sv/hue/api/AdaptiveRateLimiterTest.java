@@ -0,0 +1,89 @@
+package at.sv.hue.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveRateLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private AtomicLong sleepTime;
+    private long time;
+    private AdaptiveRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        sleepTime = new AtomicLong();
+        time = 0;
+        limiter = new AdaptiveRateLimiter(10, 2, 20, () -> time, sleepTime::set);
+    }
+
+    @Test
+    void overload_halvesRate_onlyOncePerCooldown_notBelowMinRate() {
+        limiter.onResponse("PUT", 429, FAST);
+        assertThat(limiter.getCurrentRate()).isEqualTo(5.0);
+
+        limiter.onResponse("PUT", 503, FAST);
+        assertThat(limiter.getCurrentRate()).isEqualTo(5.0);
+
+        advanceTime(AdaptiveRateLimiter.DECREASE_COOLDOWN.toMillis());
+        limiter.onConnectionFailure();
+        assertThat(limiter.getCurrentRate()).isEqualTo(2.5);
+
+        advanceTime(AdaptiveRateLimiter.DECREASE_COOLDOWN.toMillis());
+        limiter.onResponse("GET", 429, FAST);
+        assertThat(limiter.getCurrentRate()).isEqualTo(2.0);
+    }
+
+    @Test
+    void successfulWrites_increaseRate_upToMaxRate() {
+        limiter.onResponse("PUT", 200, FAST);
+        assertThat(limiter.getCurrentRate()).isCloseTo(10.1, within(0.001));
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.onResponse("PUT", 200, FAST);
+        }
+        assertThat(limiter.getCurrentRate()).isEqualTo(20.0);
+    }
+
+    @Test
+    void successfulReads_doNotChangeRate() {
+        limiter.onResponse("GET", 200, FAST);
+        limiter.onResponse("GET", 200, FAST * 100);
+
+        assertThat(limiter.getCurrentRate()).isEqualTo(10.0);
+    }
+
+    @Test
+    void risingLatency_slightlyReducesRate() {
+        limiter.onResponse("PUT", 200, FAST);
+        double rate = limiter.getCurrentRate();
+
+        limiter.onResponse("PUT", 200, FAST * 10);
+
+        assertThat(limiter.getCurrentRate()).isCloseTo(rate * 0.9, within(0.001));
+    }
+
+    @Test
+    void acquire_usesAdaptedRate() {
+        limiter.acquire(1);
+        assertThat(sleepTime.get()).isZero();
+
+        limiter.onResponse("PUT", 429, FAST);
+        limiter.acquire(1);
+        assertThat(sleepTime.get()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100)); // reserved with initial rate
+
+        limiter.acquire(1);
+        assertThat(sleepTime.get()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(300)); // 200ms later, with halved rate
+    }
+
+    private void advanceTime(long millis) {
+        time += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
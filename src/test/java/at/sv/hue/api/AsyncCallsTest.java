@@ -0,0 +1,57 @@
+package at.sv.hue.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncCallsTest {
+
+    private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void withCurrentContext_runsTaskWithCapturedPriorityAndLoggingContext() {
+        MDC.put("context", "state");
+        CompletableFuture<String> result = new CompletableFuture<>();
+        RequestPriority.INTERACTIVE.run(() -> {
+            Executor contextExecutor = AsyncCalls.withCurrentContext(executor);
+            contextExecutor.execute(() -> result.complete(RequestPriority.current() + ":" + MDC.get("context")));
+        });
+
+        assertThat(result.join()).isEqualTo("INTERACTIVE:state");
+    }
+
+    @Test
+    void joinAll_waitsForAll_rethrowsFirstFailureUnwrapped() {
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, executor);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            throw new ApiFailure("first");
+        }, executor);
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+            throw new BridgeConnectionFailure("second");
+        }, executor);
+
+        assertThatThrownBy(() -> AsyncCalls.joinAll(List.of(first, slow, second)))
+                .isInstanceOf(ApiFailure.class)
+                .hasMessage("first");
+        assertThat(slow.isDone()).isTrue();
+    }
+}
@@ -0,0 +1,147 @@
+package at.sv.hue.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalRateLimiterTest {
+
+    private List<String> acquired;
+    private CountDownLatch parentReleased;
+    private HierarchicalRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        acquired = new CopyOnWriteArrayList<>();
+        parentReleased = new CountDownLatch(1);
+        limiter = new HierarchicalRateLimiter(permits -> {
+            if (acquired.isEmpty()) {
+                await(parentReleased);
+            }
+            acquired.add("parent:" + permits);
+        });
+    }
+
+    @Test
+    void acquire_withResourceClass_noOtherRequests_usesParentRightAway() {
+        parentReleased.countDown();
+
+        limiter.acquire(10, ResourceClass.SCENE);
+        limiter.acquire(1, ResourceClass.LIGHT);
+
+        assertThat(acquired).containsExactly("parent:10", "parent:1");
+    }
+
+    @Test
+    void acquire_withoutResourceClass_onlyUsesParent() {
+        parentReleased.countDown();
+
+        limiter.acquire(1);
+
+        assertThat(acquired).containsExactly("parent:1");
+    }
+
+    @Test
+    void acquire_competingClasses_lightsAreServedBeforeExpensiveScenes() throws Exception {
+        Thread first = startRequest(3, ResourceClass.LIGHT, 0);
+        Thread firstScene = startRequest(10, ResourceClass.SCENE, 1);
+        Thread secondScene = startRequest(11, ResourceClass.SCENE, 2);
+        Thread firstLight = startRequest(1, ResourceClass.LIGHT, 3);
+        Thread secondLight = startRequest(2, ResourceClass.LIGHT, 4);
+
+        parentReleased.countDown();
+        for (Thread thread : List.of(first, firstScene, secondScene, firstLight, secondLight)) {
+            thread.join(TimeUnit.SECONDS.toMillis(2));
+        }
+
+        assertThat(acquired).containsExactly("parent:3", "parent:1", "parent:2", "parent:10", "parent:11");
+        assertThat(limiter.getWaitingCount()).isZero();
+    }
+
+    @Test
+    void acquire_singleClass_reachesFullParentRate() {
+        HierarchicalRateLimiter limiter = new HierarchicalRateLimiter(new PriorityRateLimiter(20));
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire(10, ResourceClass.SCENE);
+        }
+
+        // at the parent rate, 30 permits take one second; at the share of scenes it would be five
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1500L);
+    }
+
+    @Test
+    void acquire_sceneBurst_lightsStillGetTheirShareOfParentRate() throws Exception {
+        HierarchicalRateLimiter limiter = new HierarchicalRateLimiter(new PriorityRateLimiter(20));
+        for (int i = 0; i < 5; i++) {
+            Thread.ofVirtual().start(() -> limiter.acquire(10, ResourceClass.SCENE));
+        }
+        Thread.sleep(20);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(1, ResourceClass.LIGHT);
+        }
+
+        // without shares, each light update would queue behind a scene update of 10 permits, i.e., 0.5 seconds
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1500L);
+    }
+
+    @Test
+    void acquire_interruptedWhileWaitingForTurn_throwsBridgeConnectionFailure_removesRequest() throws Exception {
+        Thread first = startRequest(1, ResourceClass.LIGHT, 0);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread waiting = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire(10, ResourceClass.SCENE);
+            } catch (BridgeConnectionFailure e) {
+                failure.set(e);
+            }
+        });
+        awaitWaitingCount(1);
+
+        waiting.interrupt();
+        waiting.join(TimeUnit.SECONDS.toMillis(2));
+
+        assertThat(failure.get()).isInstanceOf(BridgeConnectionFailure.class);
+        assertThat(limiter.getWaitingCount()).isZero();
+        parentReleased.countDown();
+        first.join(TimeUnit.SECONDS.toMillis(2));
+        assertThat(acquired).containsExactly("parent:1");
+    }
+
+    /**
+     * The first request takes the parent and blocks there until released, all later ones wait for their turn.
+     */
+    private Thread startRequest(int permits, ResourceClass resourceClass, int expectedWaiting) throws Exception {
+        Thread thread = Thread.ofVirtual().start(() -> limiter.acquire(permits, resourceClass));
+        if (expectedWaiting == 0) {
+            Thread.sleep(50);
+        } else {
+            awaitWaitingCount(expectedWaiting);
+        }
+        return thread;
+    }
+
+    private void awaitWaitingCount(int expectedWaiting) throws InterruptedException {
+        while (limiter.getWaitingCount() < expectedWaiting) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -10,9 +10,15 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 @Slf4j
 class HttpResourceProviderTest {
@@ -47,6 +53,33 @@ class HttpResourceProviderTest {
         assertThat(resource).isEqualTo("test");
     }
 
+    @Test
+    void get_streaming_success() {
+        mockServer.enqueue(new MockResponse.Builder().body("test").build());
+
+        String resource = provider.getResource(url, body -> new String(body.readAllBytes(), StandardCharsets.UTF_8));
+
+        assertThat(resource).isEqualTo("test");
+    }
+
+    @Test
+    void get_streaming_errorCode_readerNotCalled() {
+        mockServer.enqueue(new MockResponse.Builder().code(500).body("Description").build());
+
+        assertThatThrownBy(() -> provider.getResource(url, _ -> {
+            throw new AssertionError("Unexpected read");
+        })).isInstanceOf(ApiFailure.class).hasMessageContaining("Server error: Description");
+    }
+
+    @Test
+    void get_streaming_readFailure_connectionException() {
+        mockServer.enqueue(new MockResponse.Builder().body("test").build());
+
+        assertThatThrownBy(() -> provider.getResource(url, _ -> {
+            throw new IOException("Connection reset");
+        })).isInstanceOf(BridgeConnectionFailure.class);
+    }
+
     @Test
     void put_success() {
         mockServer.enqueue(new MockResponse.Builder().body("test").build());
@@ -114,6 +147,29 @@ class HttpResourceProviderTest {
         assertThrowsError(BridgeConnectionFailure.class, "Failed");
     }
 
+    @Test
+    void responseListener_notifiedAboutStatusCode() {
+        ResponseListener listener = mock(ResponseListener.class);
+        provider = new HttpResourceProviderImpl(new OkHttpClient.Builder().build(), 2, listener);
+        mockServer.enqueue(new MockResponse.Builder().code(429).build());
+
+        assertThatThrownBy(() -> provider.putResource(url, "{}")).isInstanceOf(ApiFailure.class);
+
+        verify(listener).onResponse(eq("PUT"), eq(429), anyLong());
+        verify(listener, never()).onConnectionFailure();
+    }
+
+    @Test
+    void responseListener_connectionFailure_notified() {
+        ResponseListener listener = mock(ResponseListener.class);
+        provider = new HttpResourceProviderImpl(new OkHttpClient.Builder().build(), 2, listener);
+        shutdownIgnoringException();
+
+        assertThatThrownBy(() -> provider.getResource(url)).isInstanceOf(BridgeConnectionFailure.class);
+
+        verify(listener).onConnectionFailure();
+    }
+
     private void mockStatusCode(int code, String body) {
         mockServer.enqueue(new MockResponse.Builder().code(code).body(body).build());
         mockServer.enqueue(new MockResponse.Builder().code(code).body(body).build());
@@ -0,0 +1,92 @@
+package at.sv.hue.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriorityRateLimiterTest {
+
+    private final List<RequestPriority> grantedPermits = new CopyOnWriteArrayList<>();
+
+    @Test
+    void waitingCallers_areServedByPriority_thenByArrival() throws Exception {
+        PriorityRateLimiter limiter = new PriorityRateLimiter(10);
+        limiter.acquire(1);
+
+        Thread background = startWaiter(limiter, RequestPriority.BACKGROUND, 1);
+        Thread scheduled = startWaiter(limiter, RequestPriority.SCHEDULED, 2);
+        Thread secondScheduled = startWaiter(limiter, RequestPriority.SCHEDULED, 3);
+        Thread interactive = startWaiter(limiter, RequestPriority.INTERACTIVE, 4);
+
+        for (Thread thread : List.of(background, scheduled, secondScheduled, interactive)) {
+            thread.join(TimeUnit.SECONDS.toMillis(2));
+        }
+        assertThat(grantedPermits).containsExactly(RequestPriority.INTERACTIVE, RequestPriority.SCHEDULED,
+                RequestPriority.SCHEDULED, RequestPriority.BACKGROUND);
+        assertThat(limiter.getWaitingCount()).isZero();
+    }
+
+    @Test
+    void acquire_idle_doesNotWait() {
+        PriorityRateLimiter limiter = new PriorityRateLimiter(1);
+
+        long start = System.nanoTime();
+        RequestPriority.BACKGROUND.run(() -> limiter.acquire(1));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500L);
+    }
+
+    @Test
+    void acquire_interruptedWhileWaiting_throwsBridgeConnectionFailure_restoresInterruptStatus() throws Exception {
+        PriorityRateLimiter limiter = new PriorityRateLimiter(0.1);
+        limiter.acquire(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean interruptedAfterFailure = new AtomicBoolean();
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire(1);
+            } catch (BridgeConnectionFailure e) {
+                failure.set(e);
+                interruptedAfterFailure.set(Thread.currentThread().isInterrupted());
+            }
+        });
+        while (limiter.getWaitingCount() < 1) {
+            Thread.sleep(1);
+        }
+
+        waiter.interrupt();
+        waiter.join(TimeUnit.SECONDS.toMillis(2));
+
+        assertThat(failure.get()).isInstanceOf(BridgeConnectionFailure.class);
+        assertThat(interruptedAfterFailure).isTrue();
+        assertThat(limiter.getWaitingCount()).isZero();
+    }
+
+    @Test
+    void run_restoresPreviousPriority() {
+        RequestPriority.INTERACTIVE.run(() -> {
+            RequestPriority.BACKGROUND.run(() -> assertThat(RequestPriority.current()).isEqualTo(RequestPriority.BACKGROUND));
+            assertThat(RequestPriority.current()).isEqualTo(RequestPriority.INTERACTIVE);
+        });
+
+        assertThat(RequestPriority.current()).isEqualTo(RequestPriority.SCHEDULED);
+    }
+
+    private Thread startWaiter(PriorityRateLimiter limiter, RequestPriority priority, int expectedWaiting)
+            throws InterruptedException {
+        Thread thread = Thread.ofVirtual().start(() -> priority.run(() -> {
+            limiter.acquire(1);
+            grantedPermits.add(priority);
+        }));
+        while (limiter.getWaitingCount() < expectedWaiting) {
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+}
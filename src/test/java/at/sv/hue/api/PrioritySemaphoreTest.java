@@ -0,0 +1,97 @@
+package at.sv.hue.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrioritySemaphoreTest {
+
+    private final AtomicLong time = new AtomicLong();
+    private final PrioritySemaphore semaphore = new PrioritySemaphore(1, time::get);
+    private final List<RequestPriority> acquiredPermits = new CopyOnWriteArrayList<>();
+
+    @Test
+    void releasedPermit_goesToHighestPriority_thenToLongestWaiting() throws Exception {
+        semaphore.acquire();
+
+        List<Thread> threads = List.of(
+                startWaiter(RequestPriority.BACKGROUND),
+                startWaiter(RequestPriority.SCHEDULED),
+                startWaiter(RequestPriority.INTERACTIVE),
+                startWaiter(RequestPriority.BACKGROUND)
+        );
+        awaitWaiting(4);
+        semaphore.release();
+
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(2));
+        }
+        assertThat(acquiredPermits).containsExactly(RequestPriority.INTERACTIVE, RequestPriority.SCHEDULED,
+                RequestPriority.BACKGROUND, RequestPriority.BACKGROUND);
+    }
+
+    @Test
+    void getWaitTimes_trackedPerPriority() throws Exception {
+        semaphore.acquire();
+        Thread interactive = startWaiter(RequestPriority.INTERACTIVE);
+        awaitWaiting(1);
+
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+        semaphore.release();
+        interactive.join(TimeUnit.SECONDS.toMillis(2));
+
+        assertThat(semaphore.getWaitTimes().keySet()).containsExactly(RequestPriority.INTERACTIVE,
+                RequestPriority.SCHEDULED);
+        QueueWaitTime scheduled = semaphore.getWaitTimes().get(RequestPriority.SCHEDULED);
+        assertThat(scheduled.count()).isOne();
+        assertThat(scheduled.getMax().toMillis()).isZero();
+        QueueWaitTime interactiveWaitTime = semaphore.getWaitTimes().get(RequestPriority.INTERACTIVE);
+        assertThat(interactiveWaitTime.count()).isOne();
+        assertThat(interactiveWaitTime.getAverage().toMillis()).isEqualTo(300L);
+        assertThat(interactiveWaitTime.getMax().toMillis()).isEqualTo(300L);
+    }
+
+    @Test
+    void acquire_interrupted_leavesQueue() throws Exception {
+        semaphore.acquire();
+        Thread interrupted = Thread.ofVirtual().start(() -> {
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        awaitWaiting(1);
+        Thread background = startWaiter(RequestPriority.BACKGROUND);
+        awaitWaiting(2);
+
+        interrupted.interrupt();
+        interrupted.join(TimeUnit.SECONDS.toMillis(2));
+        semaphore.release();
+        background.join(TimeUnit.SECONDS.toMillis(2));
+
+        assertThat(acquiredPermits).containsExactly(RequestPriority.BACKGROUND);
+    }
+
+    private Thread startWaiter(RequestPriority priority) {
+        return Thread.ofVirtual().start(() -> priority.run(() -> {
+            try {
+                semaphore.acquire();
+                acquiredPermits.add(priority);
+                semaphore.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+    }
+
+    private void awaitWaiting(int count) throws InterruptedException {
+        while (semaphore.getWaitingCount() < count) {
+            Thread.sleep(1);
+        }
+    }
+}
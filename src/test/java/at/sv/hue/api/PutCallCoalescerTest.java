@@ -0,0 +1,196 @@
+package at.sv.hue.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PutCallCoalescerTest {
+
+    private CountDownLatch permitRequested;
+    private CountDownLatch permitAvailable;
+    private List<PutCall> sentCalls;
+    private PutCallCoalescer coalescer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        permitRequested = new CountDownLatch(1);
+        permitAvailable = new CountDownLatch(1);
+        sentCalls = new CopyOnWriteArrayList<>();
+        coalescer = new PutCallCoalescer(permits -> {
+            permitRequested.countDown();
+            await(permitAvailable);
+        });
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void put_noConcurrentCalls_sendsCallUnchanged() {
+        permitAvailable.countDown();
+        PutCall putCall = PutCall.builder().id("1").bri(100).transitionTime(5).build();
+
+        coalescer.put("/light/1", putCall, 1, ResourceClass.LIGHT, sentCalls::add);
+
+        assertThat(sentCalls).containsExactly(putCall);
+    }
+
+    @Test
+    void put_callForSameIdWhileWaitingForPermit_onlySendsMergedCallOnce() throws Exception {
+        Future<?> first = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").on(true).bri(100).ct(300).transitionTime(5).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        assertThat(permitRequested.await(1, TimeUnit.SECONDS)).isTrue();
+
+        Future<?> second = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").bri(120).x(0.3).y(0.4).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        Thread.sleep(50);
+        assertThat(second.isDone()).isFalse();
+
+        permitAvailable.countDown();
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+
+        assertThat(sentCalls).containsExactly(PutCall.builder().id("1").on(true).bri(120).x(0.3).y(0.4).build());
+    }
+
+    @Test
+    void put_callsForDifferentIds_areNotMerged() throws Exception {
+        Future<?> first = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").bri(100).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        assertThat(permitRequested.await(1, TimeUnit.SECONDS)).isTrue();
+        Future<?> second = executor.submit(() -> coalescer.put("/light/2",
+                PutCall.builder().id("2").bri(100).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+
+        permitAvailable.countDown();
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+
+        assertThat(sentCalls).containsExactlyInAnyOrder(
+                PutCall.builder().id("1").bri(100).build(),
+                PutCall.builder().id("2").bri(100).build());
+    }
+
+    @Test
+    void put_mergedCallFails_failureIsRethrownToAllCallers() throws Exception {
+        Future<?> first = executor.submit(() -> coalescer.put("/light/1", PutCall.builder().id("1").bri(100).build(), 1,
+                ResourceClass.LIGHT, _ -> {
+                    throw new ApiFailure("Failed");
+                }));
+        assertThat(permitRequested.await(1, TimeUnit.SECONDS)).isTrue();
+        Future<?> second = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").bri(120).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        Thread.sleep(50);
+
+        permitAvailable.countDown();
+
+        assertThatThrownBy(() -> first.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(ApiFailure.class);
+        assertThatThrownBy(() -> second.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(ApiFailure.class);
+        assertThat(sentCalls).isEmpty();
+    }
+
+    @Test
+    void put_acquiringPermitFails_failsMergedCallers_laterCallIsSentOnItsOwn() throws Exception {
+        CountDownLatch failingPermitRequested = new CountDownLatch(1);
+        CountDownLatch failPermit = new CountDownLatch(1);
+        coalescer = new PutCallCoalescer(new RateLimiter() {
+            private boolean failed;
+
+            @Override
+            public void acquire(int permits) {
+                if (!failed) {
+                    failed = true;
+                    failingPermitRequested.countDown();
+                    await(failPermit);
+                    throw new ApiFailure("Interrupted");
+                }
+            }
+        });
+        Future<?> first = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").bri(100).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        assertThat(failingPermitRequested.await(1, TimeUnit.SECONDS)).isTrue();
+        Future<?> merged = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").bri(110).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        Thread.sleep(50);
+
+        failPermit.countDown();
+
+        assertThatThrownBy(() -> first.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(ApiFailure.class);
+        assertThatThrownBy(() -> merged.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(ApiFailure.class);
+
+        Future<?> later = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").bri(120).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        later.get(1, TimeUnit.SECONDS);
+
+        assertThat(sentCalls).containsExactly(PutCall.builder().id("1").bri(120).build());
+    }
+
+    @Test
+    void awaitPending_waitsUntilPendingCallIsSent_laterCallsAreNotMergedIntoIt() throws Exception {
+        Future<?> first = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").bri(100).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        assertThat(permitRequested.await(1, TimeUnit.SECONDS)).isTrue();
+        Future<?> barrier = executor.submit(() -> coalescer.awaitPending("/light/1"));
+        Thread.sleep(50);
+        assertThat(barrier.isDone()).isFalse();
+        Future<?> later = executor.submit(() -> coalescer.put("/light/1",
+                PutCall.builder().id("1").bri(120).build(), 1, ResourceClass.LIGHT, sentCalls::add));
+        Thread.sleep(50);
+
+        permitAvailable.countDown();
+        first.get(1, TimeUnit.SECONDS);
+        barrier.get(1, TimeUnit.SECONDS);
+        later.get(1, TimeUnit.SECONDS);
+
+        assertThat(sentCalls).containsExactlyInAnyOrder(
+                PutCall.builder().id("1").bri(100).build(),
+                PutCall.builder().id("1").bri(120).build());
+    }
+
+    @Test
+    void awaitPending_noPendingCall_returnsImmediately() {
+        coalescer.awaitPending("/light/1");
+
+        assertThat(permitRequested.getCount()).isOne();
+    }
+
+    @Test
+    void merge_keepsPropertiesOnlySetByOlderCall_takesTransitionTimeOfNewerCall() {
+        PutCall merged = PutCallCoalescer.merge(
+                PutCall.builder().id("1").on(true).bri(100).ct(300).transitionTime(50).build(),
+                PutCall.builder().id("1").bri(120).build());
+
+        assertThat(merged).isEqualTo(PutCall.builder().id("1").on(true).bri(120).ct(300).build());
+    }
+
+    @Test
+    void merge_newerColor_replacesOlderColorMode() {
+        PutCall merged = PutCallCoalescer.merge(
+                PutCall.builder().id("1").x(0.3).y(0.4).build(),
+                PutCall.builder().id("1").ct(300).on(false).transitionTime(2).build());
+
+        assertThat(merged).isEqualTo(PutCall.builder().id("1").ct(300).on(false).transitionTime(2).build());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
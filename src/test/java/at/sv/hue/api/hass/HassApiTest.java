@@ -18,9 +18,13 @@ import at.sv.hue.api.LightState;
 import at.sv.hue.api.NonUniqueNameException;
 import at.sv.hue.api.PutCall;
 import at.sv.hue.api.hass.area.HassAreaRegistry;
+import at.sv.hue.api.hass.area.HassWebSocketClient;
+import at.sv.hue.api.hass.area.HassWebSocketException;
 import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 
 import java.net.MalformedURLException;
@@ -29,10 +33,21 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 public class HassApiTest {
@@ -45,7 +60,7 @@ public class HassApiTest {
 
     @BeforeEach
     void setUp() {
-        http = Mockito.mock(HttpResourceProvider.class);
+        http = Mockito.mock(HttpResourceProvider.class, Mockito.CALLS_REAL_METHODS);
         areaRegistry = Mockito.mock(HassAreaRegistry.class);
         setupApi("http://localhost:8123");
         sceneSyncUrl = getUrl("/services/scene/create");
@@ -2595,6 +2610,134 @@ public class HassApiTest {
         assertThat(api.getSceneName(sceneId)).isEqualTo("Updated Name");
     }
 
+    @Test
+    void stateMirror_servesStatesFromModifications_onlyReloadsOnResync() {
+        api = new HassApiImpl("http://localhost:8123", http, areaRegistry, new HassAvailabilityListener(() -> {
+        }), permits -> {
+        }, true);
+        setGetResponse("/states", """
+                [
+                  {
+                    "entity_id": "light.test",
+                    "state": "off",
+                    "attributes": {
+                      "supported_color_modes": [
+                        "brightness"
+                      ],
+                      "friendly_name": "Test"
+                    }
+                  }
+                ]
+                """);
+
+        assertThat(api.getLightState("light.test").isOn()).isFalse();
+
+        State turnedOn = createExampleState("light.test", "Test");
+        turnedOn.setState("on");
+        turnedOn.getAttributes().setSupported_color_modes(List.of("brightness"));
+        turnedOn.getAttributes().setBrightness(255);
+        api.onModification(null, "light.test", turnedOn);
+        api.clearCaches();
+
+        assertThat(api.getLightState("light.test").isOn()).isTrue();
+        assertThat(api.getLightState("light.test").getBrightness()).isEqualTo(254);
+        verify(http, times(1)).getResource(getUrl("/states"));
+        verify(http, never()).getResource(getUrl("/states/light.test"));
+
+        api.resyncStates();
+
+        assertThat(api.getLightState("light.test").isOn()).isFalse();
+        verify(http, times(2)).getResource(getUrl("/states"));
+    }
+
+    @Test
+    void websocketCommands_putState_callsServiceViaCommand() {
+        HassWebSocketClient commandClient = setupApiWithWebsocketCommands();
+        when(commandClient.sendCommand(eq("call_service"), anyMap()))
+                .thenReturn("{\"id\":1,\"type\":\"result\",\"success\":true,\"result\":{}}");
+
+        putState(PutCall.builder()
+                        .id("light.id")
+                        .bri(38)
+                        .transitionTime(5));
+
+        Map<String, Object> fields = captureCommandFields(commandClient, "call_service");
+        assertThat(fields).containsEntry("domain", "light")
+                          .containsEntry("service", "turn_on");
+        assertThat(fields.get("service_data")).hasToString("{\"entity_id\":\"light.id\",\"brightness\":37,\"transition\":0.5}");
+        verify(http, never()).postResource(any(), any());
+    }
+
+    @Test
+    void websocketCommands_putSceneState_turnOff_callsServiceViaCommand() {
+        HassWebSocketClient commandClient = setupApiWithWebsocketCommands();
+        when(commandClient.sendCommand(eq("call_service"), anyMap()))
+                .thenReturn("{\"id\":1,\"type\":\"result\",\"success\":true,\"result\":{}}");
+
+        api.putSceneState("1", List.of(PutCall.builder().id("switch.id1").on(false).build(),
+                PutCall.builder().id("switch.id2").on(false).build()));
+
+        Map<String, Object> fields = captureCommandFields(commandClient, "call_service");
+        assertThat(fields).containsEntry("domain", "switch")
+                          .containsEntry("service", "turn_off");
+        assertThat(fields.get("service_data")).hasToString("{\"entity_id\":[\"switch.id1\",\"switch.id2\"]}");
+        verify(http, never()).postResource(any(), any());
+    }
+
+    @Test
+    void websocketCommands_stillGetsAllStatesViaRest() {
+        HassWebSocketClient commandClient = setupApiWithWebsocketCommands();
+        setGetResponse("/states", """
+                [
+                  {
+                    "entity_id": "light.test",
+                    "state": "on",
+                    "attributes": {
+                      "supported_color_modes": [
+                        "brightness"
+                      ],
+                      "brightness": 255,
+                      "friendly_name": "Test"
+                    }
+                  }
+                ]
+                """);
+
+        assertThat(api.getLightIdentifierByName("Test")).isEqualTo(new Identifier("light.test", "Test"));
+        assertThat(api.getLightState("light.test").getBrightness()).isEqualTo(254);
+        verify(commandClient, never()).sendCommand(eq("get_states"), anyMap());
+    }
+
+    @Test
+    void websocketCommands_errorResponse_apiFailure() {
+        HassWebSocketClient commandClient = setupApiWithWebsocketCommands();
+        when(commandClient.sendCommand(eq("call_service"), anyMap())).thenReturn("""
+                {
+                  "id": 1,
+                  "type": "result",
+                  "success": false,
+                  "error": {
+                    "code": "not_found",
+                    "message": "Service light.turn_on not found."
+                  }
+                }
+                """);
+
+        assertThatThrownBy(() -> putState(PutCall.builder().id("light.id").bri(38)))
+                .isInstanceOf(ApiFailure.class)
+                .hasMessage("Command 'call_service' failed: Service light.turn_on not found.");
+    }
+
+    @Test
+    void websocketCommands_connectionFailure_bridgeConnectionFailure() {
+        HassWebSocketClient commandClient = setupApiWithWebsocketCommands();
+        when(commandClient.sendCommand(eq("call_service"), anyMap()))
+                .thenThrow(new HassWebSocketException("Timeout or error waiting for response."));
+
+        assertThatThrownBy(() -> putState(PutCall.builder().id("light.id").bri(38)))
+                .isInstanceOf(BridgeConnectionFailure.class);
+    }
+
     @Test
     void putState_turnOn_brightness_ct_transition_areConvertedToHassFormat() {
         putState(PutCall.builder()
@@ -2622,7 +2765,7 @@ public class HassApiTest {
     }
 
     @Test
-    void putSceneState_sendsEachRequestSeparately() {
+    void putSceneState_identicalStates_sendsSingleServiceCall() {
         api.putSceneState("1",
                 List.of(PutCall.builder()
                                .on(true)
@@ -2632,12 +2775,86 @@ public class HassApiTest {
                         PutCall.builder()
                                .id("light.id2")
                                .bri(38)
+                               .build(),
+                        PutCall.builder()
+                               .id("light.id3")
+                               .bri(38)
                                .build()));
 
         verify(http).postResource(getUrl("/services/light/turn_on"),
-                "{\"entity_id\":\"light.id1\",\"brightness\":37}");
+                "{\"entity_id\":[\"light.id1\",\"light.id2\",\"light.id3\"],\"brightness\":37}");
+        verifyNoMoreInteractions(http);
+    }
+
+    @Test
+    void putSceneState_differentStates_sendsOneServiceCallPerState() {
+        api.putSceneState("1",
+                List.of(PutCall.builder()
+                               .id("light.id1")
+                               .bri(38)
+                               .build(),
+                        PutCall.builder()
+                               .id("light.id2")
+                               .ct(153)
+                               .build(),
+                        PutCall.builder()
+                               .id("light.id3")
+                               .bri(38)
+                               .build(),
+                        PutCall.builder()
+                               .id("light.id4")
+                               .on(false)
+                               .build(),
+                        PutCall.builder()
+                               .id("switch.id5")
+                               .on(false)
+                               .build()));
+
         verify(http).postResource(getUrl("/services/light/turn_on"),
-                "{\"entity_id\":\"light.id2\",\"brightness\":37}");
+                "{\"entity_id\":[\"light.id1\",\"light.id3\"],\"brightness\":37}");
+        verify(http).postResource(getUrl("/services/light/turn_on"),
+                "{\"entity_id\":\"light.id2\",\"color_temp_kelvin\":6535}");
+        verify(http).postResource(getUrl("/services/light/turn_off"),
+                "{\"entity_id\":\"light.id4\"}");
+        verify(http).postResource(getUrl("/services/switch/turn_off"),
+                "{\"entity_id\":\"switch.id5\"}");
+        verifyNoMoreInteractions(http);
+    }
+
+    @Test
+    void putSceneState_pendingPutStateForSameLight_pendingCallIsSentBeforeScene() throws Exception {
+        CountDownLatch permitRequested = new CountDownLatch(1);
+        CountDownLatch permitAvailable = new CountDownLatch(1);
+        api = new HassApiImpl("http://localhost:8123", http, areaRegistry, new HassAvailabilityListener(() -> {
+        }), permits -> {
+            if (permitRequested.getCount() > 0) {
+                permitRequested.countDown();
+                await(permitAvailable);
+            }
+        });
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<?> pending = executor.submit(() -> putState(PutCall.builder().id("light.id1").bri(38)));
+            assertThat(permitRequested.await(1, TimeUnit.SECONDS)).isTrue();
+            Future<?> scene = executor.submit(() -> api.putSceneState("1",
+                    List.of(PutCall.builder().id("light.id1").bri(254).build(),
+                            PutCall.builder().id("light.id2").bri(254).build())));
+            Thread.sleep(50);
+            verifyNoInteractions(http);
+
+            permitAvailable.countDown();
+            pending.get(1, TimeUnit.SECONDS);
+            scene.get(1, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        InOrder inOrder = inOrder(http);
+        inOrder.verify(http).postResource(getUrl("/services/light/turn_on"),
+                "{\"entity_id\":\"light.id1\",\"brightness\":37}");
+        inOrder.verify(http).postResource(getUrl("/services/light/turn_on"),
+                "{\"entity_id\":[\"light.id1\",\"light.id2\"],\"brightness\":255}");
+        verifyNoMoreInteractions(http);
     }
 
     @Test
@@ -2885,6 +3102,29 @@ public class HassApiTest {
         }
     }
 
+    private HassWebSocketClient setupApiWithWebsocketCommands() {
+        HassWebSocketClient commandClient = Mockito.mock(HassWebSocketClient.class);
+        api = new HassApiImpl("http://localhost:8123", http, areaRegistry, new HassAvailabilityListener(() -> {
+        }), permits -> {
+        }, true, commandClient);
+        return commandClient;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> captureCommandFields(HassWebSocketClient commandClient, String commandType) {
+        ArgumentCaptor<Map<String, Object>> fields = ArgumentCaptor.forClass(Map.class);
+        verify(commandClient).sendCommand(eq(commandType), fields.capture());
+        return fields.getValue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private void putState(PutCall.PutCallBuilder putCall) {
         api.putState(putCall.build());
     }
@@ -21,6 +21,7 @@ class HassEventHandlerTest {
     private HassAvailabilityEventListener availabilityListener;
     private HassEventHandler handler;
     private ResourceModificationEventListener resourceModificationListener;
+    private Runnable resyncListener;
 
     @BeforeEach
     void setUp() {
@@ -28,7 +29,9 @@ class HassEventHandlerTest {
         sceneEventListener = Mockito.mock(SceneEventListener.class);
         availabilityListener = Mockito.mock(HassAvailabilityEventListener.class);
         resourceModificationListener = Mockito.mock(ResourceModificationEventListener.class);
-        handler = new HassEventHandler(lightEventListener, sceneEventListener, availabilityListener, resourceModificationListener);
+        resyncListener = Mockito.mock(Runnable.class);
+        handler = new HassEventHandler(lightEventListener, sceneEventListener, availabilityListener,
+                resourceModificationListener, resyncListener);
     }
 
     @Test
@@ -64,6 +67,15 @@ class HassEventHandlerTest {
                 """);
 
         verify(availabilityListener).onStarted();
+        verify(resyncListener).run();
+    }
+
+    @Test
+    void onConnected_requestsResync() {
+        handler.onConnected();
+
+        verify(resyncListener).run();
+        verifyNoEvents();
     }
 
     @Test
@@ -1745,6 +1757,186 @@ class HassEventHandlerTest {
         verifyNoLightOrSceneEvents();
     }
 
+    @Test
+    void onMessage_sensorStateChanged_ignoredBeforeBinding_noEvents() {
+        handler.onMessage("""
+                {
+                  "type" : "event",
+                  "event" : {
+                    "event_type" : "state_changed",
+                    "data" : {
+                      "entity_id" : "sensor.power",
+                      "old_state" : {
+                        "entity_id" : "sensor.power",
+                        "state" : "on",
+                        "attributes" : {
+                          "friendly_name" : "Power"
+                        }
+                      },
+                      "new_state" : {
+                        "entity_id" : "sensor.power",
+                        "state" : "off",
+                        "attributes" : {
+                          "friendly_name" : "Power"
+                        }
+                      }
+                    }
+                  },
+                  "id" : 1
+                }
+                """);
+
+        verifyNoEvents();
+    }
+
+    @Test
+    void onMessage_stateChanged_entityIdAfterStates_lightOff_previouslyOn_triggersOffEvent() {
+        handler.onMessage("""
+                {
+                  "id" : 1,
+                  "event" : {
+                    "data" : {
+                      "old_state" : {
+                        "entity_id" : "light.desk",
+                        "state" : "on",
+                        "attributes" : {
+                          "entity_id" : [ "sensor.nested" ],
+                          "friendly_name" : "Desk"
+                        }
+                      },
+                      "new_state" : {
+                        "entity_id" : "light.desk",
+                        "state" : "off",
+                        "attributes" : {
+                          "entity_id" : [ "sensor.nested" ],
+                          "friendly_name" : "Desk"
+                        }
+                      },
+                      "entity_id" : "light.desk"
+                    },
+                    "event_type" : "state_changed"
+                  },
+                  "type" : "event"
+                }
+                """);
+
+        verifyResourceModification("light.desk");
+        verify(lightEventListener).onLightOff("light.desk");
+    }
+
+    @Test
+    void onMessage_groupMembersChanged_reportsGroupModification() {
+        handler.onMessage(groupStateChanged("light.living_room", "[\"light.one\", \"light.two\"]",
+                "[\"light.one\", \"light.two\", \"light.three\"]"));
+
+        verify(resourceModificationListener).onModification(eq("group"), eq("light.living_room"),
+                assertArg((State s) -> assertThat(s.getAttributes().getEntity_id())
+                        .containsExactly("light.one", "light.two", "light.three")));
+    }
+
+    @Test
+    void onMessage_groupMembersUnchanged_reportsModificationWithoutType() {
+        handler.onMessage(groupStateChanged("light.living_room", "[\"light.one\", \"light.two\"]",
+                "[\"light.one\", \"light.two\"]"));
+
+        verifyResourceModification("light.living_room");
+    }
+
+    @Test
+    void onMessage_groupRemoved_reportsGroupModification() {
+        handler.onMessage("""
+                {
+                  "type": "event",
+                  "event": {
+                    "event_type": "state_changed",
+                    "data": {
+                      "entity_id": "light.living_room",
+                      "old_state": {
+                        "entity_id": "light.living_room",
+                        "state": "off",
+                        "attributes": {
+                          "entity_id": [ "light.one" ],
+                          "friendly_name": "Living room"
+                        }
+                      },
+                      "new_state": null
+                    }
+                  },
+                  "id": 1
+                }
+                """);
+
+        verify(resourceModificationListener).onModification(eq("group"), eq("light.living_room"), isNull());
+    }
+
+    @Test
+    void onMessage_hueRoomLightsChanged_reportsGroupModification() {
+        handler.onMessage("""
+                {
+                  "type": "event",
+                  "event": {
+                    "event_type": "state_changed",
+                    "data": {
+                      "entity_id": "light.hue_room",
+                      "old_state": {
+                        "entity_id": "light.hue_room",
+                        "state": "off",
+                        "attributes": {
+                          "is_hue_group": true,
+                          "lights": [ "Desk" ],
+                          "friendly_name": "Hue room"
+                        }
+                      },
+                      "new_state": {
+                        "entity_id": "light.hue_room",
+                        "state": "off",
+                        "attributes": {
+                          "is_hue_group": true,
+                          "lights": [ "Desk", "Ceiling" ],
+                          "friendly_name": "Hue room"
+                        }
+                      }
+                    }
+                  },
+                  "id": 1
+                }
+                """);
+
+        verify(resourceModificationListener).onModification(eq("group"), eq("light.hue_room"),
+                assertArg((State s) -> assertThat(s.getEntity_id()).isEqualTo("light.hue_room")));
+    }
+
+    private static String groupStateChanged(String entityId, String oldMembers, String newMembers) {
+        return """
+                {
+                  "type": "event",
+                  "event": {
+                    "event_type": "state_changed",
+                    "data": {
+                      "entity_id": "%1$s",
+                      "old_state": {
+                        "entity_id": "%1$s",
+                        "state": "off",
+                        "attributes": {
+                          "entity_id": %2$s,
+                          "friendly_name": "Group"
+                        }
+                      },
+                      "new_state": {
+                        "entity_id": "%1$s",
+                        "state": "off",
+                        "attributes": {
+                          "entity_id": %3$s,
+                          "friendly_name": "Group"
+                        }
+                      }
+                    }
+                  },
+                  "id": 1
+                }
+                """.formatted(entityId, oldMembers, newMembers);
+    }
+
     private void verifyNoEvents() {
         verifyNoLightOrSceneEvents();
         verifyNoInteractions(resourceModificationListener);
@@ -0,0 +1,98 @@
+package at.sv.hue.api.hass;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StateSnapshotTest {
+
+    @Test
+    void of_indexesStatesByName() {
+        State first = state("light.first", "Desk");
+        State second = state("light.second", "Desk");
+        State third = state("light.third", "Ceiling");
+
+        StateSnapshot snapshot = StateSnapshot.of(Map.of(first.entity_id, first, second.entity_id, second,
+                third.entity_id, third));
+
+        assertThat(snapshot.getStates()).containsOnlyKeys("light.first", "light.second", "light.third");
+        assertThat(snapshot.getStatesByName("Desk")).containsExactlyInAnyOrder(first, second);
+        assertThat(snapshot.getStatesByName("Ceiling")).containsExactly(third);
+        assertThat(snapshot.getStatesByName("Unknown")).isNull();
+    }
+
+    @Test
+    void with_addedEntity_addsToNameIndex_originalUnchanged() {
+        State first = state("light.first", "Desk");
+        StateSnapshot snapshot = StateSnapshot.of(Map.of(first.entity_id, first));
+        State second = state("light.second", "Desk");
+
+        StateSnapshot updated = snapshot.with(second.entity_id, second);
+
+        assertThat(updated.getStates()).containsOnlyKeys("light.first", "light.second");
+        assertThat(updated.getStatesByName("Desk")).containsExactly(first, second);
+        assertThat(snapshot.getStates()).containsOnlyKeys("light.first");
+        assertThat(snapshot.getStatesByName("Desk")).containsExactly(first);
+    }
+
+    @Test
+    void with_renamedEntity_movesToNewName() {
+        State first = state("light.first", "Desk");
+        State second = state("light.second", "Desk");
+        StateSnapshot snapshot = StateSnapshot.of(Map.of(first.entity_id, first, second.entity_id, second));
+        State renamed = state("light.first", "Shelf");
+
+        StateSnapshot updated = snapshot.with(renamed.entity_id, renamed);
+
+        assertThat(updated.getStates()).containsEntry("light.first", renamed);
+        assertThat(updated.getStatesByName("Desk")).containsExactly(second);
+        assertThat(updated.getStatesByName("Shelf")).containsExactly(renamed);
+        assertThat(snapshot.getStatesByName("Desk")).containsExactlyInAnyOrder(first, second);
+        assertThat(snapshot.getStatesByName("Shelf")).isNull();
+    }
+
+    @Test
+    void with_updatedState_sameName_replacesEntry() {
+        State first = state("light.first", "Desk");
+        StateSnapshot snapshot = StateSnapshot.of(Map.of(first.entity_id, first));
+        State turnedOn = state("light.first", "Desk");
+        turnedOn.setState("on");
+
+        StateSnapshot updated = snapshot.with(turnedOn.entity_id, turnedOn);
+
+        assertThat(updated.getStatesByName("Desk")).containsExactly(turnedOn);
+    }
+
+    @Test
+    void with_removedEntity_removesFromNameIndex() {
+        State first = state("light.first", "Desk");
+        State second = state("light.second", "Ceiling");
+        StateSnapshot snapshot = StateSnapshot.of(Map.of(first.entity_id, first, second.entity_id, second));
+
+        StateSnapshot updated = snapshot.with("light.first", null);
+
+        assertThat(updated.getStates()).containsOnlyKeys("light.second");
+        assertThat(updated.getStatesByName("Desk")).isNull();
+        assertThat(snapshot.getStatesByName("Desk")).containsExactly(first);
+    }
+
+    @Test
+    void with_removedUnknownEntity_returnsSameSnapshot() {
+        State first = state("light.first", "Desk");
+        StateSnapshot snapshot = StateSnapshot.of(Map.of(first.entity_id, first));
+
+        assertThat(snapshot.with("light.unknown", null)).isSameAs(snapshot);
+    }
+
+    private static State state(String entityId, String name) {
+        State state = new State();
+        state.setEntity_id(entityId);
+        state.setState("off");
+        StateAttributes attributes = new StateAttributes();
+        attributes.setFriendly_name(name);
+        state.setAttributes(attributes);
+        return state;
+    }
+}
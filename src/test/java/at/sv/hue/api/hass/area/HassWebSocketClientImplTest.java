@@ -10,6 +10,9 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
@@ -175,6 +178,24 @@ class HassWebSocketClientImplTest {
         assertThat(getResult(future3)).isEqualTo("{\"id\":3,\"type\":\"result\",\"success\":true}");
     }
 
+    @Test
+    void sendCommand_withFields_addsFieldsToMessage() throws Exception {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("domain", "light");
+        fields.put("service", "turn_on");
+        fields.put("service_data", Map.of("entity_id", List.of("light.a", "light.b")));
+        CompletableFuture<String> futureResult = CompletableFuture.supplyAsync(
+                () -> client.sendCommand("call_service", fields));
+        waitForWebSocket();
+        simulateWebSocketAuthSuccess();
+        simulateWebSocketResponse("{\"id\":1,\"type\":\"result\",\"success\":true}");
+
+        assertThat(getResult(futureResult)).isEqualTo("{\"id\":1,\"type\":\"result\",\"success\":true}");
+        assertThat(messageCaptor.getValue()).isEqualTo("{\"id\":1,\"type\":\"call_service\",\"domain\":\"light\"," +
+                                                       "\"service\":\"turn_on\"," +
+                                                       "\"service_data\":{\"entity_id\":[\"light.a\",\"light.b\"]}}");
+    }
+
     private CompletableFuture<String> asyncSendExampleCommand() throws Exception {
         CompletableFuture<String> future = CompletableFuture.supplyAsync(() -> {
             try {
@@ -50,7 +50,7 @@ class HueApiCacheUpdateTest {
 
     @BeforeEach
     void init() {
-        http = mock(HttpResourceProvider.class);
+        http = mock(HttpResourceProvider.class, CALLS_REAL_METHODS);
         api = new HueApiImpl(http, HOST, r -> {
         }, 5, null, null, 2000, 0);
         mapper = new ObjectMapper();
@@ -366,6 +366,71 @@ class HueApiCacheUpdateTest {
         verifyNoHttpCalls();
     }
 
+    @Test
+    void lightCache_update_name_updatesLookupByName_avoidsHttp() throws Exception {
+        primeLightCache("light-1", "Kitchen");
+        assertThat(api.getLightIdentifierByName("Kitchen").id()).isEqualTo("light-1");
+        clearHttp();
+
+        api.onModification("light", "light-1", json("""
+                { "metadata": { "name": "Dining" } }
+                """));
+
+        assertThat(api.getLightIdentifierByName("Dining").id()).isEqualTo("light-1");
+        assertThat(api.getLightIdentifier("/lights/1").name()).isEqualTo("Dining");
+        assertThatThrownBy(() -> api.getLightIdentifierByName("Kitchen")).hasMessageContaining("not found");
+        verifyNoHttpCalls();
+    }
+
+    @Test
+    void zoneCache_update_children_updatesAssignedGroups_avoidsHttp() throws Exception {
+        stubGet(EP_ZONE, zone("zone-1", "Downstairs", "grouped-light-1"));
+        stubGet(EP_ROOM, EMPTY);
+        assertThat(api.getAssignedGroups("old-light")).containsExactly("grouped-light-1");
+        clearHttp();
+
+        api.onModification("zone", "zone-1", json("""
+                { "children": [ { "rid": "new-light", "rtype": "light" } ] }
+                """));
+
+        assertThat(api.getAssignedGroups("old-light")).isEmpty();
+        assertThat(api.getAssignedGroups("new-light")).containsExactly("grouped-light-1");
+        verifyNoHttpCalls();
+    }
+
+    @Test
+    void sceneCache_update_name_updatesLookupByName_avoidsHttp() throws Exception {
+        stubGet(EP_ZONE, zone("zone-1", "Downstairs", "grouped-light-1"));
+        stubGet(EP_GROUPED_LIGHT, groupedLight("grouped-light-1"));
+        stubGet(EP_SCENE, scene("scene-1", "Bright"));
+        assertThat(api.getSceneId("grouped-light-1", "Bright")).isEqualTo("scene-1");
+        clearHttp();
+
+        api.onModification("scene", "scene-1", json("""
+                { "metadata": { "name": "Relax" } }
+                """));
+
+        assertThat(api.getSceneId("grouped-light-1", "Relax")).isEqualTo("scene-1");
+        assertThatThrownBy(() -> api.getSceneId("grouped-light-1", "Bright")).hasMessageContaining("No scene");
+        verifyNoHttpCalls();
+    }
+
+    @Test
+    void sceneCache_update_status_keepsLookup_avoidsHttp() throws Exception {
+        stubGet(EP_ZONE, zone("zone-1", "Downstairs", "grouped-light-1"));
+        stubGet(EP_GROUPED_LIGHT, groupedLight("grouped-light-1"));
+        stubGet(EP_SCENE, scene("scene-1", "Bright"));
+        assertThat(api.getSceneId("grouped-light-1", "Bright")).isEqualTo("scene-1");
+        clearHttp();
+
+        api.onModification("scene", "scene-1", json("""
+                { "status": { "active": "static" } }
+                """));
+
+        assertThat(api.getSceneId("grouped-light-1", "Bright")).isEqualTo("scene-1");
+        verifyNoHttpCalls();
+    }
+
     @Test
     void zigbeeCache_update_status_applies_avoidsHttp() throws Exception {
         stubGet(EP_LIGHT, light("light-1", "Kitchen"));
@@ -7,13 +7,13 @@ import at.sv.hue.Pair;
 import at.sv.hue.ScheduledLightState;
 import at.sv.hue.api.AffectedId;
 import at.sv.hue.api.ApiFailure;
+import at.sv.hue.api.AsyncCalls;
 import at.sv.hue.api.BridgeAuthenticationFailure;
 import at.sv.hue.api.BridgeConnectionFailure;
 import at.sv.hue.api.Capability;
 import at.sv.hue.api.EmptyGroupException;
 import at.sv.hue.api.GroupNotFoundException;
 import at.sv.hue.api.HttpResourceProvider;
-import at.sv.hue.api.HueApi;
 import at.sv.hue.api.Identifier;
 import at.sv.hue.api.LightCapabilities;
 import at.sv.hue.api.LightNotFoundException;
@@ -22,6 +22,7 @@ import at.sv.hue.api.NonUniqueNameException;
 import at.sv.hue.api.PutCall;
 import at.sv.hue.api.ResourceNotFoundException;
 import at.sv.hue.api.SceneNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +35,7 @@ import java.net.URL;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -55,14 +57,14 @@ class HueApiTest {
             """;
     private static final String SCENE_CONTROL_APP_DATA = "hue_sch:temp";
     private static final String SCENE_CONTROL_NAME = "HueTemp";
-    private HueApi api;
+    private HueApiImpl api;
     private String baseUrl;
     private HttpResourceProvider resourceProviderMock;
 
     @BeforeEach
     void setUp() {
         String host = "localhost";
-        resourceProviderMock = Mockito.mock(HttpResourceProvider.class);
+        resourceProviderMock = Mockito.mock(HttpResourceProvider.class, Mockito.CALLS_REAL_METHODS);
         api = new HueApiImpl(resourceProviderMock, host, _ -> {
         }, 5, SCENE_CONTROL_NAME, SCENE_CONTROL_APP_DATA, 2000, 0);
         baseUrl = "https://" + host + "/clip/v2/resource";
@@ -3327,6 +3329,77 @@ class HueApiTest {
         assertThrows(ResourceNotFoundException.class, () -> api.getGroupIdentifier("/groups/UNKNOWN"));
     }
 
+    @Test
+    void bulkResourceRefresh_loadsAllResourceTypesWithSingleRequest() {
+        api = new HueApiImpl(resourceProviderMock, "localhost", _ -> {
+        }, 5, SCENE_CONTROL_NAME, SCENE_CONTROL_APP_DATA, 2000, 0, true);
+        setGetResponse("", """
+                {
+                  "errors": [],
+                  "data": [
+                    {
+                      "id": "8ee9d9c9-dd9b-4b48-9e5a-8f4d1a4c4e3f",
+                      "type": "bridge"
+                    },
+                    {
+                      "id": "b9a9d3ff-4d72-4b1c-a3c5-d1c4e7f5d0b7",
+                      "id_v1": "/lights/1",
+                      "owner": {
+                        "rid": "7d3b3371-50dd-4b89-a1fc-c8ddd761a6b0",
+                        "rtype": "device"
+                      },
+                      "metadata": {
+                        "name": "Ceiling"
+                      },
+                      "type": "light"
+                    },
+                    {
+                      "id": "ba9c4460-0ea4-407c-93bf-3837e6b9888f",
+                      "id_v1": "/groups/8",
+                      "children": [
+                        {
+                          "rid": "7d3b3371-50dd-4b89-a1fc-c8ddd761a6b0",
+                          "rtype": "device"
+                        }
+                      ],
+                      "services": [
+                        {
+                          "rid": "e6bafd35-2246-4c5b-b0ac-5957d9344dc4",
+                          "rtype": "grouped_light"
+                        }
+                      ],
+                      "metadata": {
+                        "name": "Room"
+                      },
+                      "type": "room"
+                    }
+                  ]
+                }
+                """);
+
+        assertLightIdentifier("/lights/1", "b9a9d3ff-4d72-4b1c-a3c5-d1c4e7f5d0b7", "Ceiling");
+        assertGroupIdentifier("/groups/8", "e6bafd35-2246-4c5b-b0ac-5957d9344dc4", "Room");
+
+        verify(resourceProviderMock, times(1)).getResource(any());
+
+        api.onModification("light", "b9a9d3ff-4d72-4b1c-a3c5-d1c4e7f5d0b7", "invalid");
+
+        assertLightIdentifier("/lights/1", "b9a9d3ff-4d72-4b1c-a3c5-d1c4e7f5d0b7", "Ceiling");
+        assertGroupIdentifier("/groups/8", "e6bafd35-2246-4c5b-b0ac-5957d9344dc4", "Room");
+
+        verify(resourceProviderMock, times(2)).getResource(getUrl(""));
+        verify(resourceProviderMock, never()).getResource(getUrl("/light"));
+    }
+
+    @Test
+    void bulkResourceRefresh_missingData_exception() {
+        api = new HueApiImpl(resourceProviderMock, "localhost", _ -> {
+        }, 5, SCENE_CONTROL_NAME, SCENE_CONTROL_APP_DATA, 2000, 0, true);
+        setGetResponse("", "{}");
+
+        assertThrows(ApiFailure.class, () -> api.getLightIdentifier("/lights/1"));
+    }
+
     @Test
     void getLightId_returnsIdForLightName() {
         setGetResponse("/light", """
@@ -4435,6 +4508,18 @@ class HueApiTest {
                 }""");
     }
 
+    @Test
+    void putStateAsync_brightness_callsCorrectUrl() {
+        api.putStateAsync(PutCall.builder().id("2697622a-f39a-4f0e-b42e-651f94b4b983").bri(127).build()).join();
+
+        verifyPut("/light/2697622a-f39a-4f0e-b42e-651f94b4b983", """
+                {
+                  "dimming": {
+                    "brightness": 50.0
+                  }
+                }""");
+    }
+
     @Test
     void putState_empty_doesNotCallApi() {
         performPutCall(PutCall.builder().id("2697622a-f39a-4f0e-b42e-651f94b4b983").build());
@@ -4528,6 +4613,46 @@ class HueApiTest {
                 }""");
     }
 
+    @Test
+    void putState_sameBodyForDifferentLights_reusesSerializedBody() {
+        performPutCall(PutCall.builder().id("ID").ct(100).build());
+        performPutCall(PutCall.builder().id("ID2").ct(100).build());
+        performPutCall(PutCall.builder().id("ID").on(false).bri(100).build());
+        performPutCall(PutCall.builder().id("ID2").on(false).ct(200).build());
+
+        verifyPut("/light/ID2", """
+                {
+                  "color_temperature": {
+                    "mirek": 100
+                  }
+                }""");
+        verifyPut("/light/ID2", """
+                {
+                  "on": {
+                    "on": false
+                  }
+                }""");
+        assertThat(api.getRequestBodyCacheStats().hitCount()).isEqualTo(2);
+        assertThat(api.getRequestBodyCacheStats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void putState_XAndY_differentGamut_notReused() {
+        performPutCall(PutCall.builder().id("ID").x(0.8).y(0.2).gamut(GAMUT_C).build());
+        performPutCall(PutCall.builder().id("ID2").x(0.8).y(0.2).gamut(GAMUT_A).build());
+
+        verifyPut("/light/ID", """
+                {
+                  "color": {
+                    "xy": {
+                      "x": 0.6915,
+                      "y": 0.3083
+                    }
+                  }
+                }""");
+        assertThat(api.getRequestBodyCacheStats().hitCount()).isZero();
+    }
+
     @Test
     void putState_transitionTime_setsTimeCorrectly() {
         performPutCall(PutCall.builder().id("ID").bri(127).transitionTime(2).build());
@@ -6040,44 +6165,193 @@ class HueApiTest {
 
     @Test
     void getOrCreateScene_updateExistingOne_sameActions_noSceneCreationOrUpdateCallMade() {
+        setupZoneWithSyncedScene();
+
+        // same state -> no update
+
+        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
+                PutCall.builder().id("CT_ONLY").ct(199).bri(254),
+                PutCall.builder().id("COLOR").ct(199).bri(254)
+        );
+
+        verify(resourceProviderMock, never()).postResource(any(), any());
+        verify(resourceProviderMock, never()).putResource(any(), any());
+
+        // change ct -> performs update
+
+        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
+                PutCall.builder().id("CT_ONLY").ct(300).bri(254),
+                PutCall.builder().id("COLOR").ct(300).bri(254)
+        );
+
+        verifyPut("/scene/SCENE", """
+                {
+                  "actions": [
+                    {
+                      "target": {
+                        "rid": "CT_ONLY",
+                        "rtype": "light"
+                      },
+                      "action": {
+                        "on": {
+                          "on": true
+                        },
+                        "dimming": {
+                          "brightness": 100.0
+                        },
+                        "color_temperature": {
+                          "mirek": 300
+                        }
+                      }
+                    },
+                    {
+                      "target": {
+                        "rid": "COLOR",
+                        "rtype": "light"
+                      },
+                      "action": {
+                        "on": {
+                          "on": true
+                        },
+                        "dimming": {
+                          "brightness": 100.0
+                        },
+                        "color_temperature": {
+                          "mirek": 300
+                        }
+                      }
+                    }
+                  ]
+                }""");
+
+        // overrides single light -> performs update
+
+        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
+                PutCall.builder().id("CT_ONLY").on(false).transitionTime(10).ct(200), // ignores other properties for off states
+                PutCall.builder().id("COLOR").ct(199).bri(254)
+        );
+
+        verifyPut("/scene/SCENE", """
+                {
+                  "actions": [
+                    {
+                      "target": {
+                        "rid": "CT_ONLY",
+                        "rtype": "light"
+                      },
+                      "action": {
+                        "on": {
+                          "on": false
+                        },
+                        "dynamics": {
+                          "duration": 1000
+                        }
+                      }
+                    },
+                    {
+                      "target": {
+                        "rid": "COLOR",
+                        "rtype": "light"
+                      },
+                      "action": {
+                        "on": {
+                          "on": true
+                        },
+                        "dimming": {
+                          "brightness": 100.0
+                        },
+                        "color_temperature": {
+                          "mirek": 199
+                        }
+                      }
+                    }
+                  ]
+                }""");
+
+        // same input again -> skipped without rebuilding the actions, although the cached scene is outdated
+
+        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
+                PutCall.builder().id("CT_ONLY").on(false).transitionTime(10).ct(200),
+                PutCall.builder().id("COLOR").ct(199).bri(254)
+        );
+
+        verify(resourceProviderMock, times(2)).putResource(any(), any());
+    }
+
+
+    @Test
+    void getOrCreateScene_sameInputAfterLightModification_actionsRebuiltAndSceneUpdated() throws Exception {
+        setupZoneWithSyncedScene();
+        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
+                PutCall.builder().id("CT_ONLY").ct(199).bri(254),
+                PutCall.builder().id("COLOR").ct(199).bri(254)
+        );
+        verify(resourceProviderMock, never()).putResource(any(), any());
+
+        api.onModification("light", "CT_ONLY", new ObjectMapper().readTree("""
+                {
+                  "id": "CT_ONLY",
+                  "color_temperature": {
+                    "mirek": 250,
+                    "mirek_valid": true,
+                    "mirek_schema": {
+                      "mirek_minimum": 250,
+                      "mirek_maximum": 454
+                    }
+                  },
+                  "type": "light"
+                }"""));
+
+        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
+                PutCall.builder().id("CT_ONLY").ct(199).bri(254),
+                PutCall.builder().id("COLOR").ct(199).bri(254)
+        );
+
+        verify(resourceProviderMock).putResource(eq(getUrl("/scene/SCENE")), contains("\"mirek\":250"));
+    }
+
+    @Test
+    void putSceneState_noExistingTempScene_createAndRecall() {
         setGetResponse("/grouped_light", """
                 {
                   "errors": [],
                   "data": [
                     {
-                      "id": "GROUPED_LIGHT",
+                      "id": "GL_ZONE_1",
                       "owner": {
-                        "rid": "ZONE",
+                        "rid": "ZONE_1",
                         "rtype": "zone"
                       },
                       "type": "grouped_light"
                     }
                   ]
-                }""");
+                }
+                """);
         setGetResponse("/zone", """
                 {
                   "errors": [],
                   "data": [
                     {
-                      "id": "ZONE",
+                      "id": "ZONE_1",
+                      "id_v1": "/groups/3",
                       "children": [
                         {
-                          "rid": "CT_ONLY",
+                          "rid": "LIGHT_A",
                           "rtype": "light"
                         },
                         {
-                          "rid": "COLOR",
+                          "rid": "LIGHT_B",
                           "rtype": "light"
                         }
                       ],
                       "services": [
                         {
-                          "rid": "GROUPED_LIGHT",
+                          "rid": "GL_ZONE_1",
                           "rtype": "grouped_light"
                         }
                       ],
                       "metadata": {
-                        "name": "Couch",
+                        "name": "Zone One",
                         "archetype": "lounge"
                       },
                       "type": "zone"
@@ -6085,302 +6359,7 @@ class HueApiTest {
                   ]
                 }
                 """);
-        setGetResponse("/scene", """
-                {
-                  "errors": [],
-                  "data": [
-                    {
-                      "id": "SCENE",
-                      "actions": [
-                        {
-                          "target": {
-                            "rid": "COLOR",
-                            "rtype": "light"
-                          },
-                          "action": {
-                            "on": {
-                              "on": true
-                            },
-                            "dimming": {
-                              "brightness": 100.0
-                            },
-                            "color_temperature": {
-                              "mirek": 199
-                            }
-                          }
-                        },
-                        {
-                          "target": {
-                            "rid": "CT_ONLY",
-                            "rtype": "light"
-                          },
-                          "action": {
-                            "on": {
-                              "on": true
-                            },
-                            "dimming": {
-                              "brightness": 100.0
-                            },
-                            "color_temperature": {
-                              "mirek": 199
-                            }
-                          }
-                        }
-                      ],
-                      "metadata": {
-                        "name": "SCENE"
-                      },
-                      "group": {
-                        "rid": "ZONE",
-                        "rtype": "zone"
-                      },
-                      "speed": 0.6031746031746031,
-                      "auto_dynamic": false,
-                      "status": {
-                        "active": "inactive"
-                      },
-                      "type": "scene"
-                    }
-                  ]
-                }
-                """);
-        setGetResponse("/light", """
-                {
-                  "errors": [],
-                  "data": [
-                    {
-                      "id": "COLOR",
-                      "owner": {
-                        "rid": "2f279281-3e45-462c-9e89-6b2d3363d883",
-                        "rtype": "device"
-                      },
-                      "metadata": {
-                        "name": "Color",
-                        "archetype": "sultan_bulb",
-                        "function": "mixed"
-                      },
-                      "on": {
-                        "on": true
-                      },
-                      "dimming": {
-                        "brightness": 100.0,
-                        "min_dim_level": 0.2
-                      },
-                      "color_temperature": {
-                        "mirek": 199,
-                        "mirek_valid": true,
-                        "mirek_schema": {
-                          "mirek_minimum": 153,
-                          "mirek_maximum": 500
-                        }
-                      },
-                      "color": {
-                        "xy": {
-                          "x": 0.3448,
-                          "y": 0.3553
-                        },
-                        "gamut": {
-                          "red": {
-                            "x": 0.6915,
-                            "y": 0.3083
-                          },
-                          "green": {
-                            "x": 0.17,
-                            "y": 0.7
-                          },
-                          "blue": {
-                            "x": 0.1532,
-                            "y": 0.0475
-                          }
-                        },
-                        "gamut_type": "C"
-                      },
-                      "type": "light"
-                    },
-                    {
-                      "id": "CT_ONLY",
-                      "owner": {
-                        "rid": "2184f321-73fb-432d-afb3-33f7d2c23557",
-                        "rtype": "device"
-                      },
-                      "metadata": {
-                        "name": "CT Only",
-                        "archetype": "candle_bulb",
-                        "function": "mixed"
-                      },
-                      "on": {
-                        "on": true
-                      },
-                      "dimming": {
-                        "brightness": 100.0,
-                        "min_dim_level": 2.0
-                      },
-                      "color_temperature": {
-                        "mirek": 199,
-                        "mirek_valid": true,
-                        "mirek_schema": {
-                          "mirek_minimum": 153,
-                          "mirek_maximum": 454
-                        }
-                      },
-                      "type": "light"
-                    }
-                  ]
-                }
-                """);
-
-        // same state -> no update
-
-        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
-                PutCall.builder().id("CT_ONLY").ct(199).bri(254),
-                PutCall.builder().id("COLOR").ct(199).bri(254)
-        );
-
-        verify(resourceProviderMock, never()).postResource(any(), any());
-        verify(resourceProviderMock, never()).putResource(any(), any());
-
-        // change ct -> performs update
-
-        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
-                PutCall.builder().id("CT_ONLY").ct(300).bri(254),
-                PutCall.builder().id("COLOR").ct(300).bri(254)
-        );
-
-        verifyPut("/scene/SCENE", """
-                {
-                  "actions": [
-                    {
-                      "target": {
-                        "rid": "CT_ONLY",
-                        "rtype": "light"
-                      },
-                      "action": {
-                        "on": {
-                          "on": true
-                        },
-                        "dimming": {
-                          "brightness": 100.0
-                        },
-                        "color_temperature": {
-                          "mirek": 300
-                        }
-                      }
-                    },
-                    {
-                      "target": {
-                        "rid": "COLOR",
-                        "rtype": "light"
-                      },
-                      "action": {
-                        "on": {
-                          "on": true
-                        },
-                        "dimming": {
-                          "brightness": 100.0
-                        },
-                        "color_temperature": {
-                          "mirek": 300
-                        }
-                      }
-                    }
-                  ]
-                }""");
-
-        // overrides single light -> performs update
-
-        createOrUpdateScene("GROUPED_LIGHT", "SCENE",
-                PutCall.builder().id("CT_ONLY").on(false).transitionTime(10).ct(200), // ignores other properties for off states
-                PutCall.builder().id("COLOR").ct(199).bri(254)
-        );
-
-        verifyPut("/scene/SCENE", """
-                {
-                  "actions": [
-                    {
-                      "target": {
-                        "rid": "CT_ONLY",
-                        "rtype": "light"
-                      },
-                      "action": {
-                        "on": {
-                          "on": false
-                        },
-                        "dynamics": {
-                          "duration": 1000
-                        }
-                      }
-                    },
-                    {
-                      "target": {
-                        "rid": "COLOR",
-                        "rtype": "light"
-                      },
-                      "action": {
-                        "on": {
-                          "on": true
-                        },
-                        "dimming": {
-                          "brightness": 100.0
-                        },
-                        "color_temperature": {
-                          "mirek": 199
-                        }
-                      }
-                    }
-                  ]
-                }""");
-    }
-
-    @Test
-    void putSceneState_noExistingTempScene_createAndRecall() {
-        setGetResponse("/grouped_light", """
-                {
-                  "errors": [],
-                  "data": [
-                    {
-                      "id": "GL_ZONE_1",
-                      "owner": {
-                        "rid": "ZONE_1",
-                        "rtype": "zone"
-                      },
-                      "type": "grouped_light"
-                    }
-                  ]
-                }
-                """);
-        setGetResponse("/zone", """
-                {
-                  "errors": [],
-                  "data": [
-                    {
-                      "id": "ZONE_1",
-                      "id_v1": "/groups/3",
-                      "children": [
-                        {
-                          "rid": "LIGHT_A",
-                          "rtype": "light"
-                        },
-                        {
-                          "rid": "LIGHT_B",
-                          "rtype": "light"
-                        }
-                      ],
-                      "services": [
-                        {
-                          "rid": "GL_ZONE_1",
-                          "rtype": "grouped_light"
-                        }
-                      ],
-                      "metadata": {
-                        "name": "Zone One",
-                        "archetype": "lounge"
-                      },
-                      "type": "zone"
-                    }
-                  ]
-                }
-                """);
-        setGetResponse("/light", """
+        setGetResponse("/light", """
                 {
                   "errors": [],
                   "data": [
@@ -6538,6 +6517,70 @@ class HueApiTest {
 
     @Test
     void putSceneState_noExistingTempScene_failsToCreateScene_exception() {
+        mockSingleLightZone();
+        setGetResponse("/scene", EMPTY_RESPONSE);
+        when(resourceProviderMock.postResource(eq(getUrl("/scene")), any()))
+                .thenReturn("""
+                        {
+                        "data": [
+                        ],
+                        "errors": []
+                        }
+                        """);
+
+
+        assertThrows(ApiFailure.class, () -> api.putSceneState("GL_ZONE_1", List.of(
+                PutCall.builder().id("LIGHT_A").ct(300).bri(100).transitionTime(5).build()
+        )));
+    }
+
+    @Test
+    void putSceneStateAsync_noExistingTempScene_returnsBeforeDelayedRecall() {
+        mockSingleLightZone();
+        setGetResponse("/scene", EMPTY_RESPONSE);
+        mockSceneCreationResult("SCENE_NEW");
+
+        CompletableFuture<Void> result = api.putSceneStateAsync("GL_ZONE_1", List.of(
+                PutCall.builder().id("LIGHT_A").ct(300).bri(100).transitionTime(5).build()
+        ));
+
+        verify(resourceProviderMock, timeout(1000)).postResource(eq(getUrl("/scene")), any());
+        assertThat(result).isNotDone();
+
+        result.join();
+
+        verifyPut("/scene/SCENE_NEW", """
+                {
+                  "recall": {
+                    "action": "active",
+                    "duration": 500
+                  }
+                }
+                """);
+    }
+
+    @Test
+    void putSceneStateAsync_failsToCreateScene_completesExceptionally() {
+        mockSingleLightZone();
+        setGetResponse("/scene", EMPTY_RESPONSE);
+        when(resourceProviderMock.postResource(eq(getUrl("/scene")), any()))
+                .thenReturn("""
+                        {
+                        "data": [
+                        ],
+                        "errors": []
+                        }
+                        """);
+
+        CompletableFuture<Void> result = api.putSceneStateAsync("GL_ZONE_1", List.of(
+                PutCall.builder().id("LIGHT_A").ct(300).bri(100).build()
+        ));
+
+        assertThrows(ApiFailure.class, () -> AsyncCalls.join(result));
+        verify(resourceProviderMock, never()).putResource(any(), any());
+    }
+
+    private void mockSingleLightZone() {
         setGetResponse("/grouped_light", """
                 {
                   "errors": [],
@@ -6620,20 +6663,6 @@ class HueApiTest {
                 }
                 """);
 
-        setGetResponse("/scene", EMPTY_RESPONSE);
-        when(resourceProviderMock.postResource(eq(getUrl("/scene")), any()))
-                .thenReturn("""
-                        {
-                        "data": [
-                        ],
-                        "errors": []
-                        }
-                        """);
-
-
-        assertThrows(ApiFailure.class, () -> api.putSceneState("GL_ZONE_1", List.of(
-                PutCall.builder().id("LIGHT_A").ct(300).bri(100).transitionTime(5).build()
-        )));
     }
 
     @Test
@@ -6970,6 +6999,197 @@ class HueApiTest {
         assertThat(identifier).isEqualTo(new Identifier(id, name));
     }
 
+    private void setupZoneWithSyncedScene() {
+        setGetResponse("/grouped_light", """
+                {
+                  "errors": [],
+                  "data": [
+                    {
+                      "id": "GROUPED_LIGHT",
+                      "owner": {
+                        "rid": "ZONE",
+                        "rtype": "zone"
+                      },
+                      "type": "grouped_light"
+                    }
+                  ]
+                }""");
+        setGetResponse("/zone", """
+                {
+                  "errors": [],
+                  "data": [
+                    {
+                      "id": "ZONE",
+                      "children": [
+                        {
+                          "rid": "CT_ONLY",
+                          "rtype": "light"
+                        },
+                        {
+                          "rid": "COLOR",
+                          "rtype": "light"
+                        }
+                      ],
+                      "services": [
+                        {
+                          "rid": "GROUPED_LIGHT",
+                          "rtype": "grouped_light"
+                        }
+                      ],
+                      "metadata": {
+                        "name": "Couch",
+                        "archetype": "lounge"
+                      },
+                      "type": "zone"
+                    }
+                  ]
+                }
+                """);
+        setGetResponse("/scene", """
+                {
+                  "errors": [],
+                  "data": [
+                    {
+                      "id": "SCENE",
+                      "actions": [
+                        {
+                          "target": {
+                            "rid": "COLOR",
+                            "rtype": "light"
+                          },
+                          "action": {
+                            "on": {
+                              "on": true
+                            },
+                            "dimming": {
+                              "brightness": 100.0
+                            },
+                            "color_temperature": {
+                              "mirek": 199
+                            }
+                          }
+                        },
+                        {
+                          "target": {
+                            "rid": "CT_ONLY",
+                            "rtype": "light"
+                          },
+                          "action": {
+                            "on": {
+                              "on": true
+                            },
+                            "dimming": {
+                              "brightness": 100.0
+                            },
+                            "color_temperature": {
+                              "mirek": 199
+                            }
+                          }
+                        }
+                      ],
+                      "metadata": {
+                        "name": "SCENE"
+                      },
+                      "group": {
+                        "rid": "ZONE",
+                        "rtype": "zone"
+                      },
+                      "speed": 0.6031746031746031,
+                      "auto_dynamic": false,
+                      "status": {
+                        "active": "inactive"
+                      },
+                      "type": "scene"
+                    }
+                  ]
+                }
+                """);
+        setGetResponse("/light", """
+                {
+                  "errors": [],
+                  "data": [
+                    {
+                      "id": "COLOR",
+                      "owner": {
+                        "rid": "2f279281-3e45-462c-9e89-6b2d3363d883",
+                        "rtype": "device"
+                      },
+                      "metadata": {
+                        "name": "Color",
+                        "archetype": "sultan_bulb",
+                        "function": "mixed"
+                      },
+                      "on": {
+                        "on": true
+                      },
+                      "dimming": {
+                        "brightness": 100.0,
+                        "min_dim_level": 0.2
+                      },
+                      "color_temperature": {
+                        "mirek": 199,
+                        "mirek_valid": true,
+                        "mirek_schema": {
+                          "mirek_minimum": 153,
+                          "mirek_maximum": 500
+                        }
+                      },
+                      "color": {
+                        "xy": {
+                          "x": 0.3448,
+                          "y": 0.3553
+                        },
+                        "gamut": {
+                          "red": {
+                            "x": 0.6915,
+                            "y": 0.3083
+                          },
+                          "green": {
+                            "x": 0.17,
+                            "y": 0.7
+                          },
+                          "blue": {
+                            "x": 0.1532,
+                            "y": 0.0475
+                          }
+                        },
+                        "gamut_type": "C"
+                      },
+                      "type": "light"
+                    },
+                    {
+                      "id": "CT_ONLY",
+                      "owner": {
+                        "rid": "2184f321-73fb-432d-afb3-33f7d2c23557",
+                        "rtype": "device"
+                      },
+                      "metadata": {
+                        "name": "CT Only",
+                        "archetype": "candle_bulb",
+                        "function": "mixed"
+                      },
+                      "on": {
+                        "on": true
+                      },
+                      "dimming": {
+                        "brightness": 100.0,
+                        "min_dim_level": 2.0
+                      },
+                      "color_temperature": {
+                        "mirek": 199,
+                        "mirek_valid": true,
+                        "mirek_schema": {
+                          "mirek_minimum": 153,
+                          "mirek_maximum": 454
+                        }
+                      },
+                      "type": "light"
+                    }
+                  ]
+                }
+                """);
+    }
+
     private void createOrUpdateScene(String groupedLightId, String sceneSyncName,
                                      PutCall.PutCallBuilder... overriddenPutCallBuilders) {
         api.createOrUpdateScene(groupedLightId, sceneSyncName,
@@ -0,0 +1,105 @@
+package at.sv.hue.api.hue;
+
+import at.sv.hue.api.ApiFailure;
+import at.sv.hue.api.AsyncCalls;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScenePipelineTest {
+
+    private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<String> updates = new CopyOnWriteArrayList<>();
+
+    @Test
+    void sameGroup_updateWhileWaiting_replacesWaitingUpdate_allCallersShareResult() {
+        ScenePipeline pipeline = new ScenePipeline(100);
+
+        CompletableFuture<Void> first = pipeline.submit("group", executor, update("group:1"));
+        CompletableFuture<Void> second = pipeline.submit("group", executor, update("group:2"));
+
+        assertThat(second).isSameAs(first);
+        second.join();
+        assertThat(updates).containsExactly("group:2");
+        assertThat(pipeline.getActiveGroupCount()).isZero();
+    }
+
+    @Test
+    void sameGroup_updateWhileRunning_runsAfterRunningUpdateIsComplete() throws Exception {
+        ScenePipeline pipeline = new ScenePipeline(0);
+        CompletableFuture<Void> recall = new CompletableFuture<>();
+        CountDownLatch started = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = pipeline.submit("group", executor, () -> {
+            updates.add("group:1");
+            started.countDown();
+            return recall;
+        });
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> second = pipeline.submit("group", executor, update("group:2"));
+
+        Thread.sleep(50);
+        assertThat(updates).containsExactly("group:1");
+        assertThat(second.isDone()).isFalse();
+
+        recall.complete(null);
+        first.join();
+        second.join();
+        assertThat(updates).containsExactly("group:1", "group:2");
+    }
+
+    @Test
+    void differentGroups_runInParallel() throws Exception {
+        ScenePipeline pipeline = new ScenePipeline(0);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        CompletableFuture<Void> first = pipeline.submit("group1", executor, awaitOther(bothStarted));
+        CompletableFuture<Void> second = pipeline.submit("group2", executor, awaitOther(bothStarted));
+
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        assertThat(pipeline.getActiveGroupCount()).isZero();
+    }
+
+    @Test
+    void failedUpdate_isRethrown_nextUpdateOfGroupStillRuns() {
+        ScenePipeline pipeline = new ScenePipeline(0);
+
+        CompletableFuture<Void> failed = pipeline.submit("group", executor, () -> {
+            throw new ApiFailure("Failed");
+        });
+        assertThatThrownBy(() -> AsyncCalls.join(failed)).isInstanceOf(ApiFailure.class);
+
+        pipeline.submit("group", executor, update("group:2")).join();
+        assertThat(updates).containsExactly("group:2");
+    }
+
+    private Supplier<CompletableFuture<Void>> update(String update) {
+        return () -> {
+            updates.add(update);
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+
+    private static Supplier<CompletableFuture<Void>> awaitOther(CountDownLatch bothStarted) {
+        return () -> {
+            bothStarted.countDown();
+            try {
+                assertThat(bothStarted.await(1, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return CompletableFuture.completedFuture(null);
+        };
+    }
+}